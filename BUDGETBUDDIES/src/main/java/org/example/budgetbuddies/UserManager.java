@@ -103,33 +103,29 @@ public class UserManager {
             return;
         }
         
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
-            
-            String line = br.readLine(); // Skip header
+        try {
+            CsvCursor row = CsvCursor.open(file.toPath());
             
-            if (line == null || !line.startsWith("username")) {
+            if (!row.nextRow() || !row.getString(0).startsWith("username")) {
                 System.out.println("Invalid CSV header. Expected: " + HEADER);
                 return;
             }
             
             int lineNumber = 1;
-            while ((line = br.readLine()) != null) {
+            while (row.nextRow()) {
                 lineNumber++;
                 
-                if (line.trim().isEmpty()) {
+                if (row.fieldCount() == 1 && row.getString(0).trim().isEmpty()) {
                     continue; // Skip empty lines
                 }
                 
-                String[] parts = parseCsvLine(line);
-                
-                if (parts.length >= 5) {
+                if (row.fieldCount() >= 5) {
                     try {
-                        String username = parts[0].trim();
-                        String pinHash = parts[1].trim();
-                        String qrCode = parts[2].trim();
-                        String email = parts[3].trim();
-                        String createdDate = parts[4].trim();
+                        String username = row.getString(0).trim();
+                        String pinHash = row.getString(1).trim();
+                        String qrCode = row.getString(2).trim();
+                        String email = row.getString(3).trim();
+                        String createdDate = row.getString(4).trim();
                         
                         if (username.isEmpty() || pinHash.isEmpty() || qrCode.isEmpty()) {
                             System.out.println("Skipping invalid entry at line " + lineNumber);
@@ -179,31 +175,6 @@ public class UserManager {
         }
     }
     
-    /**
-     * Parse a CSV line handling quoted fields and commas within quotes
-     */
-    private String[] parseCsvLine(String line) {
-        List<String> result = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder field = new StringBuilder();
-        
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                result.add(field.toString());
-                field = new StringBuilder();
-            } else {
-                field.append(c);
-            }
-        }
-        
-        result.add(field.toString());
-        return result.toArray(new String[0]);
-    }
-    
     /**
      * Hash a PIN using SHA-256
      */
@@ -54,6 +54,10 @@ dependencies {
 
 tasks.withType<Test> {
     useJUnitPlatform()
+    // The managers keep their files in the working directory; keep test data out of the project
+    val testWorkDir = layout.buildDirectory.dir("test-work").get().asFile
+    workingDir = testWorkDir
+    doFirst { testWorkDir.mkdirs() }
 }
 
 // Configure the run task
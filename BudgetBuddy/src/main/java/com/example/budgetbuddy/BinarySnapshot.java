@@ -0,0 +1,260 @@
+package com.example.budgetbuddy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot files written next to the CSVs so startup can skip text parsing.
+ * The CSVs stay the interchange format; a snapshot is only used while the CSVs it
+ * mirrors still have the size and modification time it recorded for them, so an
+ * edited, replaced or deleted CSV is never shadowed.
+ *
+ * Layout (big-endian):
+ * int magic, int version, int kind, int body length, long CRC32 of body, body
+ *
+ * The body is the source count, a long size and long modification time in
+ * milliseconds per source (both -1 if it did not exist), then the payload.
+ *
+ * The payload starts with a string dictionary (count, then length-prefixed UTF-8)
+ * followed by the owner's columns. Strings in the columns are dictionary indexes,
+ * and numeric columns are fixed-width arrays.
+ */
+public class BinarySnapshot {
+
+    private static final int MAGIC = 0x42425342; // "BBSB"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 24;
+
+    /**
+     * Builds a payload. Strings are collected into the dictionary as they are written.
+     */
+    public static class Encoder {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final ByteArrayOutputStream columns = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(columns);
+
+        /**
+         * Dictionary index for a string, or -1 for null.
+         */
+        public int code(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = strings.size();
+                codes.put(value, code);
+                strings.add(value);
+            }
+            return code;
+        }
+
+        public void writeString(String value) throws IOException {
+            out.writeInt(code(value));
+        }
+
+        public void writeInt(int value) throws IOException {
+            out.writeInt(value);
+        }
+
+        public void writeLong(long value) throws IOException {
+            out.writeLong(value);
+        }
+
+        public void writeDouble(double value) throws IOException {
+            out.writeDouble(value);
+        }
+
+        public void writeInts(int[] values, int count) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(count * Integer.BYTES);
+            buffer.asIntBuffer().put(values, 0, count);
+            out.write(buffer.array());
+        }
+
+        public void writeLongs(long[] values, int count) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(count * Long.BYTES);
+            buffer.asLongBuffer().put(values, 0, count);
+            out.write(buffer.array());
+        }
+
+        byte[] toPayload() throws IOException {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(columns.size() + strings.size() * 16);
+            DataOutputStream dictionary = new DataOutputStream(payload);
+            dictionary.writeInt(strings.size());
+            for (String value : strings) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                dictionary.writeInt(bytes.length);
+                dictionary.write(bytes);
+            }
+            out.flush();
+            columns.writeTo(payload);
+            return payload.toByteArray();
+        }
+    }
+
+    /**
+     * Reads a payload written by an Encoder, in the same order.
+     */
+    public static class Decoder {
+        private final ByteBuffer buffer;
+        private final String[] strings;
+
+        Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                int length = buffer.getInt();
+                strings[i] = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            }
+        }
+
+        /**
+         * The string for a dictionary index, or null for -1.
+         */
+        public String string(int code) {
+            return code < 0 ? null : strings[code];
+        }
+
+        public String readString() {
+            return string(buffer.getInt());
+        }
+
+        public int readInt() {
+            return buffer.getInt();
+        }
+
+        public long readLong() {
+            return buffer.getLong();
+        }
+
+        public double readDouble() {
+            return buffer.getDouble();
+        }
+
+        public int[] readInts(int count) {
+            int[] values = new int[count];
+            buffer.asIntBuffer().get(values);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            return values;
+        }
+
+        public long[] readLongs(int count) {
+            long[] values = new long[count];
+            buffer.asLongBuffer().get(values);
+            buffer.position(buffer.position() + count * Long.BYTES);
+            return values;
+        }
+    }
+
+    /**
+     * Write a snapshot via a temp file and atomic rename. Call it after the source
+     * CSVs have been written; their current size and modification time are recorded.
+     */
+    public static boolean write(Path target, int kind, Encoder encoder, Path... sources) {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            byte[] payload = encoder.toPayload();
+            ByteBuffer body = ByteBuffer.allocate(Integer.BYTES + sources.length * 2 * Long.BYTES + payload.length);
+            body.putInt(sources.length);
+            for (Path source : sources) {
+                long[] stamp = stamp(source);
+                body.putLong(stamp[0]).putLong(stamp[1]);
+            }
+            body.put(payload);
+            CRC32 crc = new CRC32();
+            crc.update(body.array());
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(kind).putInt(body.capacity()).putLong(crc.getValue());
+
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                out.write(header.array());
+                out.write(body.array());
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving snapshot " + target + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Open a snapshot of the given kind. Returns null if it is missing, from another
+     * version, fails its checksum, or was written from other versions of the sources
+     * (given in the same order as to write), so the caller falls back to the CSVs.
+     */
+    public static Decoder read(Path path, int kind, Path... sources) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                System.err.println("Ignoring snapshot " + path + ": not a snapshot file");
+                return null;
+            }
+            int version = buffer.getInt();
+            if (version != VERSION || buffer.getInt() != kind) {
+                System.err.println("Ignoring snapshot " + path + ": unsupported version or kind");
+                return null;
+            }
+            int length = buffer.getInt();
+            long checksum = buffer.getLong();
+            if (length != buffer.remaining()) {
+                System.err.println("Ignoring snapshot " + path + ": truncated");
+                return null;
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), buffer.position(), length);
+            if (crc.getValue() != checksum) {
+                System.err.println("Ignoring snapshot " + path + ": checksum mismatch");
+                return null;
+            }
+
+            if (buffer.getInt() != sources.length) {
+                System.err.println("Ignoring snapshot " + path + ": written from other sources");
+                return null;
+            }
+            for (Path source : sources) {
+                long[] stamp = stamp(source);
+                if (buffer.getLong() != stamp[0] || buffer.getLong() != stamp[1]) {
+                    System.err.println("Ignoring snapshot " + path + ": " + source + " has changed");
+                    return null;
+                }
+            }
+            return new Decoder(buffer.slice());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading snapshot " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Size and modification time in milliseconds, or -1 for both if the file is missing.
+     */
+    private static long[] stamp(Path source) throws IOException {
+        if (!Files.exists(source)) {
+            return new long[]{-1, -1};
+        }
+        return new long[]{Files.size(source), Files.getLastModifiedTime(source).toMillis()};
+    }
+}
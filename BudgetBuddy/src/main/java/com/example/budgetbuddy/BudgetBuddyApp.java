@@ -1,10 +1,6 @@
 package com.example.budgetbuddy;
 
-import com.github.sarxos.webcam.Webcam;
-import com.github.sarxos.webcam.WebcamResolution;
 import com.google.zxing.*;
-import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
-import com.google.zxing.common.HybridBinarizer;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.embed.swing.SwingFXUtils;
@@ -14,6 +10,7 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
 import javafx.scene.media.MediaPlayer;
 import javafx.scene.media.MediaView;
@@ -29,16 +26,17 @@ import javafx.scene.chart.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.stage.FileChooser;
+import javafx.stage.DirectoryChooser;
+import javafx.scene.control.cell.CheckBoxTableCell;
 import javafx.scene.paint.ImagePattern;
 import javafx.scene.shape.Circle;
 import javafx.animation.*;
 import java.io.File;
 import java.awt.image.BufferedImage;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
 
 
 
@@ -47,8 +45,8 @@ public class BudgetBuddyApp extends Application {
     private UserManager userManager;
     private BudgetManager budgetManager;
     private Stage primaryStage;
-    private Webcam webcam;
-    private ExecutorService executor;
+    private WebcamService webcamService;
+    private QRScanPipeline<?> scanPipeline;
     private volatile boolean scanning = false;
     private String currentUser;
     private Circle profilePictureCircle;
@@ -63,6 +61,7 @@ public class BudgetBuddyApp extends Application {
         this.primaryStage = stage;
         this.userManager = new UserManager();
         this.budgetManager = new BudgetManager();
+        this.webcamService = new WebcamService();
 
         showLoginScreen();
 
@@ -261,6 +260,8 @@ public class BudgetBuddyApp extends Application {
         Button signInQRButton = createActionButton("Sign-In using QR-Code", "#00ffcc", false);
         signInQRButton.setPrefWidth(230);
         signInQRButton.setOnAction(e -> showQRCodeLogin());
+        // Start opening the camera while the pointer is on its way to the button
+        signInQRButton.addEventHandler(MouseEvent.MOUSE_ENTERED, e -> webcamService.prewarm());
 
         VBox mainButtons = new VBox(15);
         mainButtons.setAlignment(Pos.CENTER);
@@ -485,7 +486,7 @@ public class BudgetBuddyApp extends Application {
 
         uploadBtn.setOnAction(e -> {
             stopScanning();
-            handleQRImageUpload(qrStage);
+            handleQRImageUpload(qrStage, statusLabel);
         });
 
         cancelBtn.setOnAction(e -> {
@@ -501,7 +502,7 @@ public class BudgetBuddyApp extends Application {
         qrStage.setOnCloseRequest(e -> stopScanning());
         qrStage.show();
 
-        new Thread(() -> startQRScanning(webcamView, qrStage, statusLabel)).start();
+        startQRScanning(webcamView, qrStage, statusLabel);
     }
 
     private void showPINDialog(String username, Stage parentStage) {
@@ -604,61 +605,29 @@ public class BudgetBuddyApp extends Application {
 
     private void startQRScanning(ImageView webcamView, Stage parentStage, Label statusLabel) {
         try {
-            webcam = Webcam.getDefault();
-            if (webcam == null) {
-                Platform.runLater(() -> {
-                    statusLabel.setText("No webcam detected!");
-                    statusLabel.setStyle("-fx-text-fill: #ff6b6b; -fx-font-size: 14;");
-                });
-                return;
-            }
-
-            webcam.setViewSize(WebcamResolution.VGA.getSize());
-            webcam.open();
-
             scanning = true;
-            executor = Executors.newSingleThreadExecutor();
-
-            executor.submit(() -> {
-                Platform.runLater(() -> statusLabel.setText("Scanning for QR code..."));
-
-                while (scanning && webcam.isOpen()) {
-                    try {
-                        BufferedImage image = webcam.getImage();
-                        if (image != null) {
-                            Platform.runLater(() -> {
-                                Image fxImage = SwingFXUtils.toFXImage(image, null);
-                                webcamView.setImage(fxImage);
-                            });
-
-                            try {
-                                LuminanceSource source = new BufferedImageLuminanceSource(image);
-                                BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
-                                Result result = new MultiFormatReader().decode(bitmap);
-                                String qrCode = result.getText();
-
-                                String username = userManager.authenticateQR(qrCode);
-                                if (username != null) {
-                                    scanning = false;
-                                    Platform.runLater(() -> {
-                                        stopScanning();
-                                        showPINDialog(username, parentStage);
-                                    });
-                                    break;
-                                }
-                            } catch (NotFoundException e) {
-                                // No QR code found, continue scanning
-                            }
+            scanPipeline = new QRScanPipeline<String>(webcamService,
+                    new WebcamPreview(webcamView),
+                    BudgetBuddyApp::decodeFrame,
+                    qrCode -> {
+                        String username = userManager.authenticateQR(qrCode);
+                        if (username == null) {
+                            return false;
                         }
-
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        break;
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
-            });
+                        scanning = false;
+                        Platform.runLater(() -> {
+                            stopScanning();
+                            showPINDialog(username, parentStage);
+                        });
+                        return true;
+                    },
+                    message -> Platform.runLater(() -> {
+                        stopScanning();
+                        statusLabel.setText(message);
+                        statusLabel.setStyle("-fx-text-fill: #ff6b6b; -fx-font-size: 14;");
+                    }));
+            scanPipeline.start();
+            statusLabel.setText("Scanning for QR code...");
         } catch (Exception e) {
             Platform.runLater(() -> {
                 statusLabel.setText("Error: " + e.getMessage());
@@ -670,7 +639,23 @@ public class BudgetBuddyApp extends Application {
 
 
 
-    private void handleQRImageUpload(Stage parentStage) {
+    /**
+     * Decode a single webcam frame, or return null if it has no readable code.
+     * Runs on the pipeline's decode thread, which keeps its own decoder.
+     */
+    private static String decodeFrame(BufferedImage image) {
+        return QRFrameDecoder.forCurrentThread().decodeText(image);
+    }
+
+    /**
+     * Every distinct code in a webcam frame, or null if there are none.
+     */
+    private static List<String> decodeFrameCodes(BufferedImage image) {
+        List<String> codes = QRFrameDecoder.forCurrentThread().decodeAllText(image);
+        return codes.isEmpty() ? null : codes;
+    }
+
+    private void handleQRImageUpload(Stage parentStage, Label statusLabel) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Select QR Code Image");
         fileChooser.getExtensionFilters().add(
@@ -680,27 +665,50 @@ public class BudgetBuddyApp extends Application {
         java.io.File selectedFile = fileChooser.showOpenDialog(parentStage);
 
         if (selectedFile != null) {
-            try {
-                BufferedImage bufferedImage = javax.imageio.ImageIO.read(selectedFile);
-                if (bufferedImage == null) throw new Exception("Could not read image file");
-
-                LuminanceSource source = new BufferedImageLuminanceSource(bufferedImage);
-                BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
-                Result result = new MultiFormatReader().decode(bitmap);
-                String qrCode = result.getText();
-
-                String username = userManager.authenticateQR(qrCode);
+            decodeUploadedImage(selectedFile, statusLabel, qrCodes -> {
+                String username = null;
+                for (String qrCode : qrCodes) {
+                    username = userManager.authenticateQR(qrCode);
+                    if (username != null) break;
+                }
                 if (username != null) {
                     showPINDialog(username, parentStage);
                 } else {
                     showAlert(Alert.AlertType.ERROR, "Login Failed", "Invalid QR code");
                 }
-            } catch (NotFoundException ex) {
-                showAlert(Alert.AlertType.ERROR, "No QR Code Found", "No QR code detected in image.");
+            });
+        }
+    }
+
+    /**
+     * Read and decode an uploaded image off the FX thread, since a large photo can take
+     * seconds. Back on the FX thread the report's summary goes to the status label, and
+     * the codes to onCodes, or the report's details to an alert if there are none.
+     */
+    private void decodeUploadedImage(File file, Label statusLabel, Consumer<List<String>> onCodes) {
+        statusLabel.setText("Reading QR code...");
+        new Thread(() -> {
+            try {
+                BufferedImage bufferedImage = javax.imageio.ImageIO.read(file);
+                if (bufferedImage == null) throw new Exception("Could not read image file");
+
+                QRUploadDecoder.Report report = QRUploadDecoder.decode(bufferedImage);
+                Platform.runLater(() -> {
+                    statusLabel.setText(report.getSummary());
+                    if (report.getTexts().isEmpty()) {
+                        showAlert(Alert.AlertType.ERROR, "No QR Code Found", "No QR code detected in image.",
+                                report.getDetails());
+                    } else {
+                        onCodes.accept(report.getTexts());
+                    }
+                });
             } catch (Exception ex) {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to read QR code: " + ex.getMessage());
+                Platform.runLater(() -> {
+                    showAlert(Alert.AlertType.ERROR, "Error", "Failed to read QR code: " + ex.getMessage());
+                    statusLabel.setText("Error reading image");
+                });
             }
-        }
+        }, "qr-upload").start();
     }
 
     private String getInputFieldStyle() {
@@ -769,6 +777,7 @@ public class BudgetBuddyApp extends Application {
 
     private void showReceiptScanDialog() {
         stopScanning();
+        webcamService.prewarm();
 
         Stage receiptStage = new Stage();
         receiptStage.setTitle("Scan Receipt QR Code");
@@ -821,10 +830,12 @@ public class BudgetBuddyApp extends Application {
 
         Button scanButton = createActionButton("Start Camera", "#00ffcc", false);
         Button uploadButton = createActionButton("Upload Image", "#00ffcc", false);
+        Button batchButton = createActionButton("Batch Import", "#00ffcc", false);
         Button backButton = createActionButton("Back", "#666666", true);
 
         scanButton.setPrefWidth(150);
         uploadButton.setPrefWidth(150);
+        batchButton.setPrefWidth(150);
 
         scanButton.setOnAction(e -> {
             if (!scanning) {
@@ -844,12 +855,20 @@ public class BudgetBuddyApp extends Application {
 
         uploadButton.setOnAction(e -> handleReceiptQRImageUpload(receiptStage, statusLabel));
 
+        batchButton.setOnAction(e -> {
+            stopScanning();
+            webcamView.setVisible(false);
+            placeholderBox.setVisible(true);
+            scanButton.setText("Start Camera");
+            handleReceiptBatchImport(receiptStage, statusLabel);
+        });
+
         backButton.setOnAction(e -> {
             stopScanning();
             receiptStage.close();
         });
 
-        buttonBox.getChildren().addAll(scanButton, uploadButton);
+        buttonBox.getChildren().addAll(scanButton, uploadButton, batchButton);
 
         content.getChildren().addAll(
                 titleLabel,
@@ -868,48 +887,25 @@ public class BudgetBuddyApp extends Application {
 
     private void startReceiptQRScanning(ImageView webcamView, Stage parentStage, Label statusLabel) {
         try {
-            webcam = Webcam.getDefault();
-            if (webcam == null) {
-                showAlert(Alert.AlertType.ERROR, "No Webcam", "No webcam detected.");
-                return;
-            }
-
-            webcam.setViewSize(WebcamResolution.VGA.getSize());
-            webcam.open();
             scanning = true;
 
-            executor = Executors.newSingleThreadExecutor();
-            executor.submit(() -> {
-                MultiFormatReader reader = new MultiFormatReader();
-                while (scanning && webcam.isOpen()) {
-                    try {
-                        BufferedImage image = webcam.getImage();
-                        if (image != null) {
-                            Platform.runLater(() -> webcamView.setImage(SwingFXUtils.toFXImage(image, null)));
-
-                            LuminanceSource source = new BufferedImageLuminanceSource(image);
-                            BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
-
-                            try {
-                                Result result = reader.decode(bitmap);
-                                String qrData = result.getText();
-                                scanning = false;
-
-                                Platform.runLater(() -> {
-                                    stopScanning();
-                                    processReceiptQR(qrData, parentStage, statusLabel);
-                                });
-                            } catch (NotFoundException ex) {
-                                // Continue scanning
-                            }
-                            reader.reset();
-                        }
-                        Thread.sleep(100);
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
-                    }
-                }
-            });
+            // Several receipts may be in view at once, so look for every code in the frame
+            scanPipeline = new QRScanPipeline<List<String>>(webcamService,
+                    new WebcamPreview(webcamView),
+                    BudgetBuddyApp::decodeFrameCodes,
+                    qrCodes -> {
+                        scanning = false;
+                        Platform.runLater(() -> {
+                            stopScanning();
+                            processReceiptQRCodes(qrCodes, null, parentStage, statusLabel);
+                        });
+                        return true;
+                    },
+                    message -> Platform.runLater(() -> {
+                        stopScanning();
+                        showAlert(Alert.AlertType.ERROR, "No Webcam", message);
+                    }));
+            scanPipeline.start();
         } catch (Exception ex) {
             showAlert(Alert.AlertType.ERROR, "Camera Error", "Failed to start camera: " + ex.getMessage());
         }
@@ -925,19 +921,22 @@ public class BudgetBuddyApp extends Application {
         java.io.File selectedFile = fileChooser.showOpenDialog(parentStage);
 
         if (selectedFile != null) {
-            try {
-                BufferedImage bufferedImage = javax.imageio.ImageIO.read(selectedFile);
-                if (bufferedImage == null) throw new Exception("Could not read image file");
+            decodeUploadedImage(selectedFile, statusLabel,
+                    qrCodes -> processReceiptQRCodes(qrCodes, selectedFile, parentStage, statusLabel));
+        }
+    }
 
-                String qrData = ReceiptQRScanner.scanQRFromImage(bufferedImage);
-                processReceiptQR(qrData, parentStage, statusLabel);
-            } catch (NotFoundException ex) {
-                showAlert(Alert.AlertType.ERROR, "No QR Code Found", "No QR code detected in image.");
-                statusLabel.setText("No QR code found in image");
-            } catch (Exception ex) {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to read QR code: " + ex.getMessage());
-                statusLabel.setText("Error reading image");
-            }
+    /**
+     * A single code goes through the usual confirmation dialog; several codes from one
+     * photo or frame are reviewed together like a batch import.
+     *
+     * @param source The image file the codes came from, or null for the webcam
+     */
+    private void processReceiptQRCodes(List<String> qrCodes, File source, Stage parentStage, Label statusLabel) {
+        if (qrCodes.size() == 1) {
+            processReceiptQR(qrCodes.get(0), parentStage, statusLabel);
+        } else {
+            showReceiptBatchReview(ReceiptBatchImporter.parseCodes(source, qrCodes), parentStage, statusLabel);
         }
     }
 
@@ -1031,23 +1030,187 @@ public class BudgetBuddyApp extends Application {
         });
     }
 
+    /**
+     * One line of the batch import review table.
+     */
+    private static class ReceiptImportRow {
+        final ReceiptBatchImporter.Result result;
+        final javafx.beans.property.BooleanProperty accepted;
+
+        ReceiptImportRow(ReceiptBatchImporter.Result result) {
+            this.result = result;
+            this.accepted = new javafx.beans.property.SimpleBooleanProperty(result.getReceipt() != null);
+            if (result.getReceipt() == null) {
+                // Nothing to import from this file, so it can't be ticked
+                accepted.addListener((obs, wasAccepted, isAccepted) -> {
+                    if (isAccepted) accepted.set(false);
+                });
+            }
+        }
+    }
+
+    private void handleReceiptBatchImport(Stage parentStage, Label statusLabel) {
+        ButtonType folderBtn = new ButtonType("Folder");
+        ButtonType filesBtn = new ButtonType("Files");
+        ButtonType cancelBtn = new ButtonType("Cancel", ButtonBar.ButtonData.CANCEL_CLOSE);
+
+        Alert choice = new Alert(Alert.AlertType.CONFIRMATION);
+        choice.initOwner(parentStage);
+        choice.setTitle("Batch Import");
+        choice.setHeaderText("Import several receipt QR images");
+        choice.setContentText("Import every image in a folder, or pick the files yourself?");
+        choice.getButtonTypes().setAll(folderBtn, filesBtn, cancelBtn);
+
+        ButtonType response = choice.showAndWait().orElse(cancelBtn);
+        List<File> files;
+        if (response == folderBtn) {
+            DirectoryChooser directoryChooser = new DirectoryChooser();
+            directoryChooser.setTitle("Select Folder of Receipt QR Images");
+            File directory = directoryChooser.showDialog(parentStage);
+            if (directory == null) return;
+            files = ReceiptBatchImporter.listImages(directory);
+        } else if (response == filesBtn) {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Select Receipt QR Images");
+            fileChooser.getExtensionFilters().add(
+                    new FileChooser.ExtensionFilter("Image Files", "*.png", "*.jpg", "*.jpeg", "*.bmp", "*.gif")
+            );
+            List<File> selected = fileChooser.showOpenMultipleDialog(parentStage);
+            if (selected == null) return;
+            files = selected;
+        } else {
+            return;
+        }
+
+        if (files.isEmpty()) {
+            showAlert(Alert.AlertType.INFORMATION, "No Images", "No image files were found to import.");
+            return;
+        }
+
+        int total = files.size();
+        statusLabel.setText(String.format("Reading 0 of %d images...", total));
+        new Thread(() -> {
+            List<ReceiptBatchImporter.Result> results = ReceiptBatchImporter.importFiles(files,
+                    done -> Platform.runLater(() -> statusLabel.setText(String.format("Reading %d of %d images...", done, total))));
+            Platform.runLater(() -> showReceiptBatchReview(results, parentStage, statusLabel));
+        }, "receipt-batch").start();
+    }
+
+    private void showReceiptBatchReview(List<ReceiptBatchImporter.Result> results, Stage parentStage, Label statusLabel) {
+        ObservableList<ReceiptImportRow> rows = FXCollections.observableArrayList();
+        int found = 0;
+        for (ReceiptBatchImporter.Result result : results) {
+            rows.add(new ReceiptImportRow(result));
+            if (result.getReceipt() != null) found++;
+        }
+        statusLabel.setText(String.format("Found %d receipts", found));
+
+        TableView<ReceiptImportRow> table = new TableView<>(rows);
+        table.setEditable(true);
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.setPrefSize(760, 420);
+
+        TableColumn<ReceiptImportRow, Boolean> acceptCol = new TableColumn<>("Import");
+        acceptCol.setCellValueFactory(data -> data.getValue().accepted);
+        acceptCol.setCellFactory(CheckBoxTableCell.forTableColumn(acceptCol));
+        acceptCol.setEditable(true);
+        acceptCol.setMaxWidth(70);
+
+        TableColumn<ReceiptImportRow, String> fileCol = new TableColumn<>("File");
+        fileCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(
+                data.getValue().result.getFile() != null ? data.getValue().result.getFile().getName() : "Camera"));
+
+        TableColumn<ReceiptImportRow, String> merchantCol = new TableColumn<>("Merchant");
+        merchantCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(
+                data.getValue().result.getReceipt() != null ? data.getValue().result.getReceipt().getMerchant() : ""));
+
+        TableColumn<ReceiptImportRow, String> dateCol = new TableColumn<>("Date");
+        dateCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(
+                data.getValue().result.getReceipt() != null ? data.getValue().result.getReceipt().getDate() : ""));
+
+        TableColumn<ReceiptImportRow, String> categoryCol = new TableColumn<>("Category");
+        categoryCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(
+                data.getValue().result.getReceipt() != null ? data.getValue().result.getReceipt().getCategory() : ""));
+
+        TableColumn<ReceiptImportRow, String> amountCol = new TableColumn<>("Amount");
+        amountCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(
+                data.getValue().result.getReceipt() != null ? String.format("₱%.2f", data.getValue().result.getReceipt().getAmount()) : ""));
+
+        TableColumn<ReceiptImportRow, String> statusCol = new TableColumn<>("Status");
+        statusCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(
+                data.getValue().result.getError() != null ? data.getValue().result.getError() : "OK"));
+
+        table.getColumns().addAll(acceptCol, fileCol, merchantCol, dateCol, categoryCol, amountCol, statusCol);
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Review Imported Receipts");
+        dialog.initOwner(parentStage);
+        dialog.setResizable(true);
+
+        Label infoLabel = new Label("Untick any receipt you don't want to add:");
+        infoLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 14;");
+        VBox box = new VBox(10, infoLabel, table);
+        box.setPadding(new Insets(20));
+
+        ButtonType importBtn = new ButtonType("Import Selected", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().setContent(box);
+        dialog.getDialogPane().getButtonTypes().addAll(importBtn, ButtonType.CANCEL);
+
+        dialog.showAndWait().ifPresent(response -> {
+            if (response != importBtn) return;
+
+            List<Transaction> expenses = new ArrayList<>();
+            double totalAmount = 0;
+            for (ReceiptImportRow row : rows) {
+                ReceiptQRScanner.ReceiptData receipt = row.result.getReceipt();
+                if (row.accepted.get() && receipt != null) {
+                    expenses.add(new Transaction(receipt.getDate(), receipt.getCategory(),
+                            receipt.getDescription(), receipt.getAmount(), "Expense"));
+                    totalAmount += receipt.getAmount();
+                }
+            }
+            if (expenses.isEmpty()) {
+                statusLabel.setText("No receipts imported");
+                return;
+            }
+
+            try {
+                budgetManager.addTransactions(currentUser, expenses);
+
+                parentStage.close();
+                showAlert(Alert.AlertType.INFORMATION, "Success",
+                        String.format("Imported %d receipts!\n\nTotal: ₱%.2f", expenses.size(), totalAmount));
+
+                StackPane contentArea = (StackPane) ((BorderPane) primaryStage.getScene().getRoot()).getCenter();
+                showExpenses(contentArea);
+            } catch (Exception e) {
+                showAlert(Alert.AlertType.ERROR, "Error", "Failed to import receipts: " + e.getMessage());
+            }
+        });
+    }
+
     // ============ END RECEIPT SCANNER METHODS ============
 
 
     private void stopScanning() {
         scanning = false;
-        if (executor != null) {
-            executor.shutdownNow();
-            executor = null;
-        }
-        if (webcam != null && webcam.isOpen()) {
-            webcam.close();
-            webcam = null;
+        if (scanPipeline != null) {
+            scanPipeline.stop();
+            scanPipeline = null;
         }
     }
 
     private void cleanup() {
         stopScanning();
+        if (webcamService != null) {
+            webcamService.shutdown();
+        }
+        if (budgetManager != null) {
+            budgetManager.shutdown();
+        }
+        if (userManager != null) {
+            userManager.shutdown();
+        }
     }
 
     private Button createStyledButton(String text, String color) {
@@ -1066,6 +1229,21 @@ public class BudgetBuddyApp extends Application {
         alert.showAndWait();
     }
 
+    /**
+     * An alert with details, such as a decode report, that the user can expand.
+     */
+    private void showAlert(Alert.AlertType type, String title, String content, String details) {
+        Alert alert = new Alert(type);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(content);
+        TextArea detailsArea = new TextArea(details);
+        detailsArea.setEditable(false);
+        detailsArea.setStyle("-fx-font-family: monospace;");
+        alert.getDialogPane().setExpandableContent(detailsArea);
+        alert.showAndWait();
+    }
+
     private void showDashboard(String username) {
         stopScanning();
 
@@ -1431,13 +1609,16 @@ public class BudgetBuddyApp extends Application {
         titleLabel.setFont(Font.font("System", FontWeight.BOLD, 28));
         titleLabel.setStyle("-fx-text-fill: White;");
 
-        HBox summaryCards = createSummaryCards();
+        // Every card and chart is drawn from the same version of the user's data
+        UserSnapshot snapshot = budgetManager.getSnapshot(username);
+
+        HBox summaryCards = createSummaryCards(snapshot);
         HBox charts = new HBox(20);
         charts.setFillHeight(true);
         HBox.setHgrow(charts, Priority.ALWAYS);
 
-        charts.getChildren().addAll(createExpenseChart(), createBudgetProgressChart());
-        VBox recentTransactions = createRecentTransactionsTable();
+        charts.getChildren().addAll(createExpenseChart(snapshot), createBudgetProgressChart(snapshot));
+        VBox recentTransactions = createRecentTransactionsTable(snapshot);
 
         overview.getChildren().addAll(titleLabel, summaryCards, charts, recentTransactions);
         contentArea.getChildren().clear();
@@ -1454,10 +1635,10 @@ public class BudgetBuddyApp extends Application {
         fade.play();
     }
 
-    private HBox createSummaryCards() {
+    private HBox createSummaryCards(UserSnapshot snapshot) {
         HBox cards = new HBox(20);
-        double totalIncome = budgetManager.getTotalIncome(currentUser);
-        double totalExpenses = budgetManager.getTotalExpenses(currentUser);
+        double totalIncome = snapshot.getTotalIncome();
+        double totalExpenses = snapshot.getTotalExpenses();
         double balance = totalIncome - totalExpenses;
 
         Region spacer = new Region();
@@ -1492,7 +1673,7 @@ public class BudgetBuddyApp extends Application {
         return card;
     }
 
-    private VBox createExpenseChart() {
+    private VBox createExpenseChart(UserSnapshot snapshot) {
         VBox chartBox = new VBox(10);
         chartBox.setStyle("-fx-background-color: white; -fx-background-radius: 15; -fx-padding: 20;");
 
@@ -1511,7 +1692,7 @@ public class BudgetBuddyApp extends Application {
         pieChart.prefHeightProperty().bind(chartBox.heightProperty().multiply(0.85));
 
 
-        Map<String, Double> expenses = budgetManager.getExpensesByCategory(currentUser);
+        Map<String, Double> expenses = snapshot.getExpensesByCategory();
         ObservableList<PieChart.Data> pieData = FXCollections.observableArrayList();
 
         for (Map.Entry<String, Double> entry : expenses.entrySet()) {
@@ -1523,7 +1704,7 @@ public class BudgetBuddyApp extends Application {
         return chartBox;
     }
 
-    private VBox createBudgetProgressChart() {
+    private VBox createBudgetProgressChart(UserSnapshot snapshot) {
         VBox chartBox = new VBox(10);
         chartBox.setStyle("-fx-background-color: rgba(0,47,47,0.9); -fx-background-radius: 15; -fx-padding: 20;");
 
@@ -1535,7 +1716,7 @@ public class BudgetBuddyApp extends Application {
         title.setFont(Font.font("System", FontWeight.BOLD, 16));
         title.setStyle("-fx-text-fill: white;");
 
-        BarChart<String, Number> barChart = createBudgetBarChart();
+        BarChart<String, Number> barChart = createBudgetBarChart(snapshot);
         chartBox.setMaxWidth(Double.MAX_VALUE);
         HBox.setHgrow(chartBox, Priority.ALWAYS);
 
@@ -1561,7 +1742,7 @@ public class BudgetBuddyApp extends Application {
     }
 
 
-    private BarChart<String, Number> createBudgetBarChart() {
+    private BarChart<String, Number> createBudgetBarChart(UserSnapshot snapshot) {
         CategoryAxis xAxis = new CategoryAxis();
         NumberAxis yAxis = new NumberAxis();
         BarChart<String, Number> barChart = new BarChart<>(xAxis, yAxis);
@@ -1572,7 +1753,7 @@ public class BudgetBuddyApp extends Application {
 
 
         XYChart.Series<String, Number> series = new XYChart.Series<>();
-        Map<String, Budget> budgets = budgetManager.getUserBudgets(currentUser);
+        Map<String, Budget> budgets = snapshot.getBudgets();
         for (Map.Entry<String, Budget> entry : budgets.entrySet()) {
             Budget budget = entry.getValue();
             series.getData().add(new XYChart.Data<>(budget.getCategory(), budget.getSpent()));
@@ -1582,7 +1763,7 @@ public class BudgetBuddyApp extends Application {
         return barChart;
     }
 
-    private VBox createRecentTransactionsTable() {
+    private VBox createRecentTransactionsTable(UserSnapshot snapshot) {
         VBox tableBox = new VBox(15);
         tableBox.setStyle("-fx-background-color: rgba(0,47,47,0.9); -fx-background-radius: 15; -fx-padding: 20; -fx-effect: dropshadow(gaussian, rgba(0,255,200,0.25), 15, 0, 0, 0);");
 
@@ -1613,7 +1794,7 @@ public class BudgetBuddyApp extends Application {
         amountCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(String.format("₱%.2f", data.getValue().getAmount())));
 
         table.getColumns().addAll(dateCol, categoryCol, descCol, amountCol);
-        table.setItems(FXCollections.observableArrayList(budgetManager.getRecentTransactions(currentUser, 10)));
+        table.setItems(FXCollections.observableArrayList(snapshot.getRecentTransactions()));
 
         tableBox.getChildren().addAll(title, table);
         return tableBox;
@@ -1645,16 +1826,17 @@ public class BudgetBuddyApp extends Application {
         header.getChildren().addAll(titleLabel, spacer, buttonGroup);
 
         VBox budgetsList = new VBox(15);
-        Map<String, Budget> budgets = budgetManager.getUserBudgets(currentUser);
+        UserSnapshot snapshot = budgetManager.getSnapshot(currentUser);
+        Map<String, Budget> budgets = snapshot.getBudgets();
 
         for (Budget budget : budgets.values()) {
             budgetsList.getChildren().add(createBudgetCard(budget));
         }
 
         // Display Target Savings if set
-        double targetSavings = budgetManager.getTargetSavings(currentUser);
+        double targetSavings = snapshot.getTargetSavings();
         if (targetSavings > 0) {
-            budgetsList.getChildren().add(0, createTargetSavingsCard(targetSavings));
+            budgetsList.getChildren().add(0, createTargetSavingsCard(snapshot));
         }
 
         ScrollPane scrollPane = new ScrollPane(budgetsList);
@@ -1666,7 +1848,8 @@ public class BudgetBuddyApp extends Application {
         contentArea.getChildren().add(budgetsView);
     }
 
-    private VBox createTargetSavingsCard(double targetSavings) {
+    private VBox createTargetSavingsCard(UserSnapshot snapshot) {
+        double targetSavings = snapshot.getTargetSavings();
         VBox card = new VBox(15);
         // Emerald gradient + soft glow
         card.setStyle(
@@ -1675,8 +1858,8 @@ public class BudgetBuddyApp extends Application {
                         + "-fx-effect: dropshadow(gaussian, rgba(0,255,150,0.22), 14, 0, 0, 2);"
         );
 
-        double totalIncome = budgetManager.getTotalIncome(currentUser);
-        double totalExpenses = budgetManager.getTotalExpenses(currentUser);
+        double totalIncome = snapshot.getTotalIncome();
+        double totalExpenses = snapshot.getTotalExpenses();
         double currentSavings = Math.max(0, totalIncome - totalExpenses);
         double progress = (targetSavings <= 0) ? 0 : (currentSavings / targetSavings) * 100;
 
@@ -2392,21 +2575,22 @@ public class BudgetBuddyApp extends Application {
 
         header.getChildren().addAll(titleLabel, periodSelector);
 
-        LineChart<String, Number> lineChart = createMonthlyTrendChart();
+        LineChart<String, Number> lineChart = createMonthlyTrendChart(budgetManager.getSnapshot(currentUser));
 
         periodSelector.setOnAction(e -> {
             String period = periodSelector.getValue();
+            UserSnapshot snapshot = budgetManager.getSnapshot(currentUser);
             LineChart<String, Number> newChart;
 
             switch(period) {
                 case "Daily":
-                    newChart = createDailyTrendChart();
+                    newChart = createDailyTrendChart(snapshot);
                     break;
                 case "Weekly":
-                    newChart = createWeeklyTrendChart();
+                    newChart = createWeeklyTrendChart(snapshot);
                     break;
                 default:
-                    newChart = createMonthlyTrendChart();
+                    newChart = createMonthlyTrendChart(snapshot);
             }
 
             reportsView.getChildren().set(1, newChart);
@@ -2417,7 +2601,7 @@ public class BudgetBuddyApp extends Application {
         contentArea.getChildren().add(reportsView);
     }
 
-    private LineChart<String, Number> createDailyTrendChart() {
+    private LineChart<String, Number> createDailyTrendChart(UserSnapshot snapshot) {
         CategoryAxis xAxis = new CategoryAxis();
         NumberAxis yAxis = new NumberAxis();
         yAxis.setLabel("Amount (₱)");
@@ -2438,18 +2622,10 @@ public class BudgetBuddyApp extends Application {
         LocalDate today = LocalDate.now();
         for (int i = 6; i >= 0; i--) {
             LocalDate date = today.minusDays(i);
-            String dateStr = date.format(DateTimeFormatter.ISO_LOCAL_DATE);
             String displayDate = date.format(DateTimeFormatter.ofPattern("MM/dd"));
 
-            double dailyIncome = budgetManager.getIncome(currentUser).stream()
-                    .filter(t -> t.getDate().equals(dateStr))
-                    .mapToDouble(Transaction::getAmount)
-                    .sum();
-
-            double dailyExpense = budgetManager.getExpenses(currentUser).stream()
-                    .filter(t -> t.getDate().equals(dateStr))
-                    .mapToDouble(Transaction::getAmount)
-                    .sum();
+            double dailyIncome = snapshot.sumByDayRange("Income", date, date);
+            double dailyExpense = snapshot.sumByDayRange("Expense", date, date);
 
             incomeSeries.getData().add(new XYChart.Data<>(displayDate, dailyIncome));
             expenseSeries.getData().add(new XYChart.Data<>(displayDate, dailyExpense));
@@ -2459,7 +2635,7 @@ public class BudgetBuddyApp extends Application {
         return lineChart;
     }
 
-    private LineChart<String, Number> createWeeklyTrendChart() {
+    private LineChart<String, Number> createWeeklyTrendChart(UserSnapshot snapshot) {
         CategoryAxis xAxis = new CategoryAxis();
         NumberAxis yAxis = new NumberAxis();
         yAxis.setLabel("Amount (₱)");
@@ -2483,21 +2659,8 @@ public class BudgetBuddyApp extends Application {
 
             String weekLabel = "Week " + (4 - i);
 
-            double weeklyIncome = budgetManager.getIncome(currentUser).stream()
-                    .filter(t -> {
-                        LocalDate tDate = LocalDate.parse(t.getDate());
-                        return !tDate.isBefore(weekStart) && !tDate.isAfter(weekEnd);
-                    })
-                    .mapToDouble(Transaction::getAmount)
-                    .sum();
-
-            double weeklyExpense = budgetManager.getExpenses(currentUser).stream()
-                    .filter(t -> {
-                        LocalDate tDate = LocalDate.parse(t.getDate());
-                        return !tDate.isBefore(weekStart) && !tDate.isAfter(weekEnd);
-                    })
-                    .mapToDouble(Transaction::getAmount)
-                    .sum();
+            double weeklyIncome = snapshot.sumByDayRange("Income", weekStart, weekEnd);
+            double weeklyExpense = snapshot.sumByDayRange("Expense", weekStart, weekEnd);
 
             incomeSeries.getData().add(new XYChart.Data<>(weekLabel, weeklyIncome));
             expenseSeries.getData().add(new XYChart.Data<>(weekLabel, weeklyExpense));
@@ -2507,7 +2670,7 @@ public class BudgetBuddyApp extends Application {
         return lineChart;
     }
 
-    private LineChart<String, Number> createMonthlyTrendChart() {
+    private LineChart<String, Number> createMonthlyTrendChart(UserSnapshot snapshot) {
         CategoryAxis xAxis = new CategoryAxis();
         NumberAxis yAxis = new NumberAxis();
         yAxis.setLabel("Amount (₱)");
@@ -2524,8 +2687,8 @@ public class BudgetBuddyApp extends Application {
         XYChart.Series<String, Number> expenseSeries = new XYChart.Series<>();
         expenseSeries.setName("Expenses");
 
-        Map<String, Double> monthlyIncome = budgetManager.getMonthlyIncome(currentUser);
-        Map<String, Double> monthlyExpenses = budgetManager.getMonthlyExpenses(currentUser);
+        Map<String, Double> monthlyIncome = snapshot.getMonthlyIncome();
+        Map<String, Double> monthlyExpenses = snapshot.getMonthlyExpenses();
 
         Set<String> allMonths = new TreeSet<>();
         allMonths.addAll(monthlyIncome.keySet());
@@ -3,62 +3,442 @@ package com.example.budgetbuddy;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
 import java.time.Month;
 import java.util.*;
-import java.util.stream.Collectors;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Per-user budgets, transactions and savings targets.
+ *
+ * Thread safety: the top-level maps are concurrent and each user has their own
+ * StampedLock, so work on different users never contends. Changes take the user's
+ * write lock, list reads take the read lock, and the dashboard totals try an
+ * optimistic read first. StampedLock is not reentrant; the private helpers below
+ * the public methods assume the caller already holds the right lock.
+ *
+ * Screens that show several values at once should read them from getSnapshot,
+ * which is republished after every committed change and needs no lock at all.
+ */
 public class BudgetManager {
+    private static final String DATA_DIRECTORY = "data";
     private static final String TARGET_SAVINGS_CSV = "target_savings.csv";
     private static final String TARGET_SAVINGS_HEADER = "username,target_amount";
     private static final String TRANSACTIONS_CSV = "transactions.csv";
     private static final String BUDGETS_CSV = "budgets.csv";
+    private static final String TRANSACTIONS_JOURNAL = "transactions.journal";
+    private static final int JOURNAL_COMPACTION_THRESHOLD = 500;
+    private static final long DEFAULT_FLUSH_WINDOW_MS = 500;
+    private static final long DEFAULT_USER_IDLE_MS = TimeUnit.MINUTES.toMillis(15);
+    private static final int TRANSACTIONS_SNAPSHOT_KIND = 1;
     private static final String TRANSACTIONS_HEADER = "username,date,category,description,amount,type,transaction_id";
     private static final String BUDGETS_HEADER = "username,category,limit,spent";
     private static final String DELIMITER = ",";
+    // New transactions must fall in these years; stored ones are loaded as they are
+    private static final int MIN_YEAR = 1900;
+    private static final int MAX_YEAR = 2199;
+    private static final int FIRST_VALID_DAY = TransactionStore.epochDayOf(MIN_YEAR, 1, 1);
+    private static final int LAST_VALID_DAY = TransactionStore.epochDayOf(MAX_YEAR, 12, 31);
 
 
-    private Map<String, Double> targetSavings = new HashMap<>();
+    private Map<String, Double> targetSavings = new ConcurrentHashMap<>();
 
     private final Map<String, Double> userTargetSavings = new HashMap<>();
 
     private final Map<String, Map<String, Budget>> userBudgets;
 
-    private final Map<String, List<Transaction>> userTransactions;
+    private final Map<String, TransactionStore> userTransactions;
+
+    private final ShardedDataStore dataStore;
+
+    private enum Store { MANIFEST, BUDGETS, TRANSACTIONS, TARGET_SAVINGS, CLEAR }
+
+    /**
+     * A store inside one user's shard; the manifest uses a null username.
+     */
+    private static final class ShardKey {
+        final String username;
+        final Store store;
+
+        ShardKey(String username, Store store) {
+            this.username = username;
+            this.store = store;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof ShardKey)) return false;
+            ShardKey that = (ShardKey) obj;
+            return store == that.store && Objects.equals(username, that.username);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(username, store);
+        }
+
+        @Override
+        public String toString() {
+            return store + (username != null ? " for " + username : "");
+        }
+    }
+
+    private final WriteBehindFlusher<ShardKey> flusher;
+
+    private final Set<String> compactionRequested = ConcurrentHashMap.newKeySet();
+
+    // Bumped on every change to a store and recorded when it is written, so a store
+    // that has not changed since its last write is skipped instead of rewritten
+    private final Map<ShardKey, Long> versions = new ConcurrentHashMap<>();
+    private final Map<ShardKey, Long> writtenVersions = new ConcurrentHashMap<>();
+    private final Map<Store, Long> avoidedWrites = new ConcurrentHashMap<>();
+
+    private final Map<Integer, String> monthLabels = new ConcurrentHashMap<>();
+
+    // One lock per user; entries are tiny and are kept after eviction
+    private final Map<String, StampedLock> userLocks = new ConcurrentHashMap<>();
+
+    // Published read-only views, and the stores each user changed since their last publish
+    private final Map<String, AtomicReference<UserSnapshot>> snapshots = new ConcurrentHashMap<>();
+    private final Map<String, Set<Store>> unpublished = new ConcurrentHashMap<>();
+
+    // Users whose shard is in memory, and when each was last used
+    private final Set<String> loadedUsers = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> lastAccess = new ConcurrentHashMap<>();
+    private final long userIdleMillis;
+    private final ScheduledExecutorService evictor;
 
 
     public BudgetManager() {
-        this.userBudgets = new HashMap<>();
-        this.userTransactions = new HashMap<>();
+        this(DEFAULT_FLUSH_WINDOW_MS);
+    }
+
+    /**
+     * @param flushWindowMillis How long changes are coalesced before being written to disk
+     */
+    public BudgetManager(long flushWindowMillis) {
+        this(flushWindowMillis, DEFAULT_USER_IDLE_MS);
+    }
 
-        loadTransactions();
-        loadBudgets();
-        loadTargetSavings();
+    /**
+     * Only the list of usernames is read at startup; each user's data is loaded the
+     * first time it is used and dropped again after it has been idle for a while.
+     *
+     * @param flushWindowMillis How long changes are coalesced before being written to disk
+     * @param userIdleMillis How long a user's data stays in memory unused; 0 or less keeps it forever
+     */
+    public BudgetManager(long flushWindowMillis, long userIdleMillis) {
+        this.userBudgets = new ConcurrentHashMap<>();
+        this.userTransactions = new ConcurrentHashMap<>();
+        this.dataStore = new ShardedDataStore(DATA_DIRECTORY);
+        this.flusher = new WriteBehindFlusher<>("budgetbuddy-flusher", flushWindowMillis, this::writeStore);
+        this.userIdleMillis = userIdleMillis;
+
+        if (dataStore.hasManifest()) {
+            Set<String> usernames = dataStore.loadManifest();
+            System.out.println("Indexed " + usernames.size() + " users");
+        } else {
+            migrateLegacyFiles();
+        }
 
-        if (!userTransactions.containsKey("testuser") || userTransactions.get("testuser").isEmpty()) {
+        ensureUserExists("testuser");
+        if (userTransactions.get("testuser").size() == 0) {
             seedTestData("testuser");
         }
+
+        if (userIdleMillis > 0) {
+            this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "budgetbuddy-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(1000, userIdleMillis / 2);
+            evictor.scheduleWithFixedDelay(this::evictIdleUsers, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.evictor = null;
+        }
     }
 
 
     public void setTargetSavings(String username, double target) {
-        targetSavings.put(username, target);
-        saveData();
+        updateUser(username, () -> {
+            ensureUserExists(username);
+            Double previous = targetSavings.put(username, target);
+            if (previous == null || previous != target) {
+                markChanged(username, Store.TARGET_SAVINGS);
+            }
+        });
     }
 
     public double getTargetSavings(String username) {
-        return targetSavings.getOrDefault(username, 0.0);
+        return readUserOptimistic(username, false, () -> targetSavings.getOrDefault(username, 0.0));
     }
 
+    /**
+     * Schedule a write of every store. Stores that have not changed since they were
+     * last written are skipped. Returns without waiting for the disk.
+     */
     public void saveData() {
-        saveBudgets();
-        saveTransactions();
-        saveTargetSavings();
+        flusher.markDirty(new ShardKey(null, Store.MANIFEST));
+        for (String username : userTransactions.keySet()) {
+            flusher.markDirty(new ShardKey(username, Store.BUDGETS));
+            flusher.markDirty(new ShardKey(username, Store.TRANSACTIONS));
+            flusher.markDirty(new ShardKey(username, Store.TARGET_SAVINGS));
+        }
+    }
+
+    /**
+     * Schedule a full write of one user's shard, changed or not.
+     */
+    private void saveUserData(String username) {
+        compactionRequested.add(username);
+        markChanged(username, Store.BUDGETS);
+        markChanged(username, Store.TRANSACTIONS);
+        markChanged(username, Store.TARGET_SAVINGS);
+    }
+
+    /**
+     * Record a change to one store and schedule its write.
+     */
+    private void markChanged(String username, Store store) {
+        ShardKey key = new ShardKey(username, store);
+        versions.merge(key, 1L, Long::sum);
+        flusher.markDirty(key);
+        if (username != null) {
+            unpublished.computeIfAbsent(username, u -> ConcurrentHashMap.newKeySet()).add(store);
+        }
+    }
+
+    /**
+     * True if any of the user's stores has a change that has not reached the disk.
+     */
+    private boolean hasUnwrittenChanges(String username) {
+        for (Map.Entry<ShardKey, Long> entry : versions.entrySet()) {
+            if (username.equals(entry.getKey().username)
+                    && !entry.getValue().equals(writtenVersions.get(entry.getKey()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number of scheduled writes that were skipped because the store had not changed.
+     */
+    public long getAvoidedWriteCount() {
+        long total = 0;
+        for (long count : avoidedWrites.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Skipped writes per store (MANIFEST, BUDGETS, TRANSACTIONS, TARGET_SAVINGS).
+     */
+    public Map<String, Long> getAvoidedWriteCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Store store : Store.values()) {
+            Long count = avoidedWrites.get(store);
+            if (count != null) {
+                counts.put(store.name(), count);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Write all pending changes now, on the calling thread.
+     */
+    public void flush() {
+        flusher.flush();
+    }
+
+    /**
+     * Write all pending changes and stop the background threads.
+     */
+    public void shutdown() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        flusher.shutdown();
+    }
+
+    private StampedLock lockFor(String username) {
+        return userLocks.computeIfAbsent(username, u -> new StampedLock());
+    }
+
+    /**
+     * Run a change to one user's data under that user's write lock, then publish
+     * the user's new snapshot before the lock is released. The snapshot is published
+     * even if the change fails, so it never lags behind what was already applied.
+     */
+    private <T> T writeUser(String username, Supplier<T> action) {
+        StampedLock lock = lockFor(username);
+        long stamp = lock.writeLock();
+        try {
+            return action.get();
+        } finally {
+            try {
+                publishSnapshot(username);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    private void updateUser(String username, Runnable action) {
+        writeUser(username, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Read one user's data under their read lock. A user that still has to be loaded
+     * (or created, if create is set) is handled first under the write lock.
+     */
+    private <T> T readUser(String username, boolean create, Supplier<T> action) {
+        StampedLock lock = lockFor(username);
+        long stamp = lock.readLock();
+        try {
+            if (isReady(username, create)) {
+                lastAccess.put(username, System.currentTimeMillis());
+            } else {
+                long writeStamp = lock.tryConvertToWriteLock(stamp);
+                if (writeStamp == 0L) {
+                    lock.unlockRead(stamp);
+                    writeStamp = lock.writeLock();
+                }
+                stamp = writeStamp;
+                if (create) {
+                    ensureUserExists(username);
+                } else {
+                    loadUser(username);
+                }
+            }
+            return action.get();
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Read without taking a lock and keep the result only if no write to the user
+     * happened in the meantime. Otherwise, or if a half-applied write made the read
+     * fail, it is repeated under the read lock. Only for short reads of aggregates.
+     */
+    private <T> T readUserOptimistic(String username, boolean create, Supplier<T> action) {
+        StampedLock lock = lockFor(username);
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L && isReady(username, create)) {
+            try {
+                T result = action.get();
+                if (lock.validate(stamp)) {
+                    lastAccess.put(username, System.currentTimeMillis());
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // Raced a writer; read again under the lock
+            }
+        }
+        return readUser(username, create, action);
+    }
+
+    /**
+     * Render rows for a disk write. Unlike readUser this never loads the user.
+     */
+    private <T> T withReadLock(String username, Supplier<T> action) {
+        StampedLock lock = lockFor(username);
+        long stamp = lock.readLock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private boolean isReady(String username, boolean create) {
+        return loadedUsers.contains(username)
+                && (!create || (userTransactions.containsKey(username) && userBudgets.containsKey(username)));
+    }
+
+    /**
+     * Make sure a user's shard is in memory and record the access. Users that have
+     * no shard yet are left alone; ensureUserExists creates them.
+     */
+    private void loadUser(String username) {
+        lastAccess.put(username, System.currentTimeMillis());
+        if (!loadedUsers.add(username)) {
+            return;
+        }
+        if (dataStore.isRegistered(username)) {
+            loadUserShard(username);
+        }
+    }
+
+    /**
+     * Drop users that have not been used for userIdleMillis. Their changes are flushed
+     * first, and a user touched again in the meantime is kept.
+     */
+    private void evictIdleUsers() {
+        long cutoff = System.currentTimeMillis() - userIdleMillis;
+        List<String> idleUsers = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : lastAccess.entrySet()) {
+            if (entry.getValue() < cutoff) {
+                idleUsers.add(entry.getKey());
+            }
+        }
+        if (idleUsers.isEmpty()) {
+            return;
+        }
+
+        flusher.flush();
+
+        int evicted = 0;
+        for (String username : idleUsers) {
+            boolean dropped = writeUser(username, () -> {
+                Long accessed = lastAccess.get(username);
+                if (accessed == null || accessed >= cutoff
+                        || compactionRequested.contains(username)
+                        || hasUnwrittenChanges(username)
+                        || dataStore.journal(username).hasPending()
+                        || flusher.hasPendingWrites(key -> username.equals(key.username))) {
+                    return false;
+                }
+                userTransactions.remove(username);
+                userBudgets.remove(username);
+                targetSavings.remove(username);
+                loadedUsers.remove(username);
+                lastAccess.remove(username);
+                snapshots.remove(username);
+                unpublished.remove(username);
+                versions.keySet().removeIf(key -> username.equals(key.username));
+                writtenVersions.keySet().removeIf(key -> username.equals(key.username));
+                return true;
+            });
+            if (dropped) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            System.out.println("Evicted " + evicted + " idle users from memory");
+        }
     }
 
     private void seedTestData(String username) {
         userBudgets.put(username, new HashMap<>());
-        userTransactions.put(username, new ArrayList<>());
+        userTransactions.put(username, new TransactionStore());
 
         addExpense(username, "2025-10-25", "Food", "Dinner with friends", 1500.00);
         addExpense(username, "2025-10-26", "Transportation", "Gas refill", 800.00);
@@ -70,188 +450,332 @@ public class BudgetManager {
     }
 
     private void ensureUserExists(String username) {
+        loadUser(username);
         userBudgets.putIfAbsent(username, new HashMap<>());
-        userTransactions.putIfAbsent(username, new ArrayList<>());
+        userTransactions.putIfAbsent(username, new TransactionStore());
+        if (dataStore.register(username)) {
+            markChanged(null, Store.MANIFEST);
+        }
     }
 
 
     private void addTransaction(String username, String date, String category, String description, double amount, String type) {
+        addTransaction(username, new Transaction(date, category, description, amount, type));
+    }
+
+    private void addTransaction(String username, Transaction transaction) {
+        validateTransaction(transaction);
         ensureUserExists(username);
-        Transaction transaction = new Transaction(date, category, description, amount, type);
         userTransactions.get(username).add(transaction);
 
-        if (type.equals("Expense")) {
-            Budget budget = userBudgets.get(username).get(category);
+        boolean isExpense = transaction.getType().equals("Expense");
+        if (isExpense) {
+            Budget budget = userBudgets.get(username).get(transaction.getCategory());
             if (budget != null) {
-                budget.recordExpense(amount);
+                budget.recordExpense(transaction.getAmount());
             }
         }
 
-        saveTransactions();
-        if (type.equals("Expense")) {
-            saveBudgets();
+        dataStore.journal(username).append(TransactionJournal.OP_ADD, formatTransactionRow(username, transaction));
+        markChanged(username, Store.TRANSACTIONS);
+        if (isExpense) {
+            markChanged(username, Store.BUDGETS);
         }
     }
 
     public void addExpense(String username, String date, String category, String description, double amount) {
-        addTransaction(username, date, category, description, amount, "Expense");
+        updateUser(username, () -> addTransaction(username, date, category, description, amount, "Expense"));
     }
 
     public void addIncome(String username, String date, String description, double amount) {
-        addTransaction(username, date, "Income", description, amount, "Income");
+        updateUser(username, () -> addTransaction(username, date, "Income", description, amount, "Income"));
+    }
+
+    /**
+     * Add several transactions as one change: one lock, one published snapshot, and
+     * the screens never show part of the batch. Every row is checked first, so a bad
+     * row rejects the whole batch with an IllegalArgumentException and adds nothing.
+     */
+    public void addTransactions(String username, List<Transaction> transactions) {
+        if (transactions.isEmpty()) return;
+        for (Transaction transaction : transactions) {
+            validateTransaction(transaction);
+        }
+        updateUser(username, () -> {
+            for (Transaction transaction : transactions) {
+                addTransaction(username, transaction);
+            }
+        });
+    }
+
+    /**
+     * Throw if the transaction could not be stored: an unparseable date or one outside
+     * MIN_YEAR..MAX_YEAR (almost always a mistyped year), or no type or category.
+     */
+    private static void validateTransaction(Transaction transaction) {
+        if (transaction.getType() == null || transaction.getCategory() == null) {
+            throw new IllegalArgumentException("Transaction " + transaction.getId() + " has no type or category");
+        }
+        int epochDay = TransactionStore.parseEpochDay(transaction.getDate());
+        if (epochDay < FIRST_VALID_DAY || epochDay > LAST_VALID_DAY) {
+            throw new IllegalArgumentException("Date out of range " + MIN_YEAR + "-" + MAX_YEAR + ": "
+                    + transaction.getDate());
+        }
     }
 
     public void removeExpense(String username, Transaction transaction) {
-        List<Transaction> transactions = userTransactions.get(username);
+        updateUser(username, () -> removeTransaction(username, transaction));
+    }
+
+    private void removeTransaction(String username, Transaction transaction) {
+        loadUser(username);
+        TransactionStore transactions = userTransactions.get(username);
         if (transactions == null) return;
 
+        // Another thread may already have removed it; the budget must only change once
+        int row = transactions.indexOf(transaction.getId());
+        if (row < 0) return;
+
         if (transaction.getType().equals("Expense")) {
             Budget budget = userBudgets.get(username).get(transaction.getCategory());
             if (budget != null) {
                 budget.removeExpense(transaction.getAmount());
             }
         }
-        transactions.remove(transaction);
-
-        saveTransactions();
+        transactions.remove(row);
+        dataStore.journal(username).append(TransactionJournal.OP_DELETE, username + DELIMITER + transaction.getId());
+        markChanged(username, Store.TRANSACTIONS);
         if (transaction.getType().equals("Expense")) {
-            saveBudgets();
+            markChanged(username, Store.BUDGETS);
         }
     }
 
     public void deleteTransaction(String username, String transactionId) {
-        List<Transaction> transactions = userTransactions.get(username);
-        if (transactions == null) return;
-
-        transactions.stream()
-                .filter(t -> t.getId().equals(transactionId))
-                .findFirst()
-                .ifPresent(t -> {
-                    if (t.getType().equals("Expense")) {
-                        Budget budget = userBudgets.get(username).get(t.getCategory());
-                        if (budget != null) {
-                            budget.removeExpense(t.getAmount());
-                        }
-                    }
-                    transactions.remove(t);
+        updateUser(username, () -> {
+            loadUser(username);
+            TransactionStore transactions = userTransactions.get(username);
+            if (transactions == null) return;
+
+            int row = transactions.indexOf(transactionId);
+            if (row < 0) return;
+
+            boolean isExpense = transactions.getType(row).equals("Expense");
+            if (isExpense) {
+                Budget budget = userBudgets.get(username).get(transactions.getCategory(row));
+                if (budget != null) {
+                    budget.removeExpense(transactions.getAmount(row));
+                }
+            }
+            transactions.remove(row);
 
-                    saveTransactions();
-                    if (t.getType().equals("Expense")) {
-                        saveBudgets();
-                    }
-                });
+            dataStore.journal(username).append(TransactionJournal.OP_DELETE, username + DELIMITER + transactionId);
+            markChanged(username, Store.TRANSACTIONS);
+            if (isExpense) {
+                markChanged(username, Store.BUDGETS);
+            }
+        });
     }
 
     public List<Transaction> getExpenses(String username) {
-        ensureUserExists(username);
-        return userTransactions.get(username).stream()
-                .filter(t -> t.getType().equals("Expense"))
-                .sorted(Comparator.comparing(Transaction::getDate).reversed())
-                .collect(Collectors.toList());
+        return readUser(username, true, () ->
+                userTransactions.get(username).listByDateDescending("Expense", Integer.MAX_VALUE));
     }
 
     public List<Transaction> getIncome(String username) {
-        ensureUserExists(username);
-        return userTransactions.get(username).stream()
-                .filter(t -> t.getType().equals("Income"))
-                .sorted(Comparator.comparing(Transaction::getDate).reversed())
-                .collect(Collectors.toList());
+        return readUser(username, true, () ->
+                userTransactions.get(username).listByDateDescending("Income", Integer.MAX_VALUE));
+    }
+
+    /**
+     * Total of one type between two dates inclusive, optionally for a single category
+     * (null for all). Costs O(log days) however many transactions the user has.
+     */
+    public double sumByDayRange(String username, String type, String category,
+                                LocalDate fromDay, LocalDate toDay) {
+        return readUserOptimistic(username, true, () ->
+                userTransactions.get(username).sumCentsByDayRange(type, category,
+                        (int) fromDay.toEpochDay(), (int) toDay.toEpochDay()) / 100.0);
     }
 
     public List<Transaction> getRecentTransactions(String username, int count) {
-        ensureUserExists(username);
-        return userTransactions.get(username).stream()
-                .sorted(Comparator.comparing(Transaction::getDate).reversed())
-                .limit(count)
-                .collect(Collectors.toList());
+        return readUser(username, true, () -> userTransactions.get(username).listByDateDescending(null, count));
     }
 
 
     public void addBudget(String username, String category, double limit) {
-        ensureUserExists(username);
+        updateUser(username, () -> {
+            ensureUserExists(username);
 
-        double currentSpent = getExpenses(username).stream()
-                .filter(t -> t.getCategory().equals(category))
-                .mapToDouble(Transaction::getAmount)
-                .sum();
+            double currentSpent = userTransactions.get(username).sumCents("Expense", category) / 100.0;
 
-        Budget budget = new Budget(category, limit, currentSpent);
-        userBudgets.get(username).put(category, budget);
-        saveBudgets();
+            Budget budget = new Budget(category, limit, currentSpent);
+            userBudgets.get(username).put(category, budget);
+            markChanged(username, Store.BUDGETS);
+        });
     }
 
     public void updateBudgetLimit(String username, String category, double newLimit) {
-        Map<String, Budget> budgets = userBudgets.get(username);
-        if (budgets != null && budgets.containsKey(category)) {
-            budgets.get(category).setLimit(newLimit);
-            saveBudgets();
-        }
+        updateUser(username, () -> {
+            loadUser(username);
+            Map<String, Budget> budgets = userBudgets.get(username);
+            if (budgets != null && budgets.containsKey(category)) {
+                budgets.get(category).setLimit(newLimit);
+                markChanged(username, Store.BUDGETS);
+            }
+        });
     }
 
     public void deleteBudget(String username, String category) {
-        Map<String, Budget> budgets = userBudgets.get(username);
-        if (budgets != null) {
-            budgets.remove(category);
-            saveBudgets();
-        }
+        updateUser(username, () -> {
+            loadUser(username);
+            Map<String, Budget> budgets = userBudgets.get(username);
+            if (budgets != null) {
+                if (budgets.remove(category) != null) {
+                    markChanged(username, Store.BUDGETS);
+                }
+            }
+        });
     }
 
+    /**
+     * Copies of the user's budgets, taken under the read lock. Callers can read and
+     * iterate them while other threads record expenses, and changing a copy does not
+     * change what is stored.
+     */
     public Map<String, Budget> getUserBudgets(String username) {
-        ensureUserExists(username);
-        return userBudgets.get(username);
+        return readUser(username, true, () -> copyBudgets(username));
     }
 
 
     public double getTotalIncome(String username) {
-        return getIncome(username).stream().mapToDouble(Transaction::getAmount).sum();
+        return readUserOptimistic(username, true, () -> userTransactions.get(username).sumCents("Income", null) / 100.0);
     }
 
     public double getTotalExpenses(String username) {
-        return getExpenses(username).stream().mapToDouble(Transaction::getAmount).sum();
+        return readUserOptimistic(username, true, () -> userTransactions.get(username).sumCents("Expense", null) / 100.0);
     }
 
     public Map<String, Double> getExpensesByCategory(String username) {
-        return getExpenses(username).stream()
-                .collect(Collectors.groupingBy(
-                        Transaction::getCategory,
-                        Collectors.summingDouble(Transaction::getAmount)
-                ));
+        return readUser(username, true, () -> expensesByCategory(userTransactions.get(username)));
+    }
+
+    private Map<String, Double> expensesByCategory(TransactionStore transactions) {
+        Map<String, Double> result = new HashMap<>();
+        transactions.sumCentsByCategory("Expense")
+                .forEach((category, cents) -> result.put(category, cents / 100.0));
+        return result;
     }
 
     public Map<String, Double> getMonthlyExpenses(String username) {
-        return getMonthlySummary(getExpenses(username));
+        return readUser(username, true, () -> getMonthlySummary(userTransactions.get(username).sumCentsByMonth("Expense")));
     }
 
     public Map<String, Double> getMonthlyIncome(String username) {
-        return getMonthlySummary(getIncome(username));
+        return readUser(username, true, () -> getMonthlySummary(userTransactions.get(username).sumCentsByMonth("Income")));
     }
 
-    private Map<String, Double> getMonthlySummary(List<Transaction> transactions) {
+    /**
+     * The user's current snapshot. This is lock-free unless no snapshot has been built
+     * yet or the date has changed since it was, in which case one is built now.
+     */
+    public UserSnapshot getSnapshot(String username) {
+        AtomicReference<UserSnapshot> published = snapshots.get(username);
+        UserSnapshot snapshot = published != null ? published.get() : null;
+        int today = (int) LocalDate.now().toEpochDay();
+        if (snapshot != null && snapshot.getDay() == today) {
+            lastAccess.put(username, System.currentTimeMillis());
+            return snapshot;
+        }
 
-        Map<String, Double> monthlyData = transactions.stream()
-                .collect(Collectors.groupingBy(
-                        t -> {
-                            return t.getDate().substring(0, 7);
-                        },
-                        Collectors.summingDouble(Transaction::getAmount)
-                ));
+        // Under the read lock no change can be committed, so nothing newer is overwritten
+        return readUser(username, true, () -> {
+            AtomicReference<UserSnapshot> reference = snapshots.computeIfAbsent(username, u -> new AtomicReference<>());
+            UserSnapshot previous = reference.get();
+            UserSnapshot built = new UserSnapshot(previous != null ? previous.getVersion() + 1 : 1, today,
+                    buildActivity(username, today), copyBudgets(username),
+                    targetSavings.getOrDefault(username, 0.0));
+            reference.set(built);
+            return built;
+        });
+    }
 
-        return monthlyData.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .collect(Collectors.toMap(
-                        entry -> {
-                            String[] parts = entry.getKey().split("-");
-                            int year = Integer.parseInt(parts[0]);
-                            int month = Integer.parseInt(parts[1]);
-                            return Month.of(month).toString().substring(0, 3) + " " + year;
-                        },
-                        Map.Entry::getValue,
-                        (oldValue, newValue) -> oldValue,
-                        LinkedHashMap::new
-                ));
+    /**
+     * Replace the parts of the user's snapshot that the last change touched. Called
+     * with the user's write lock held. Users nobody has asked for a snapshot of are
+     * skipped; theirs is built on first use.
+     */
+    private void publishSnapshot(String username) {
+        Set<Store> changed = unpublished.remove(username);
+        AtomicReference<UserSnapshot> published = snapshots.get(username);
+        if (changed == null || published == null || published.get() == null) {
+            return;
+        }
+        if (!userTransactions.containsKey(username)) {
+            snapshots.remove(username);
+            return;
+        }
+
+        UserSnapshot snapshot = published.get();
+        published.set(snapshot.next(
+                changed.contains(Store.TRANSACTIONS) ? buildActivity(username, snapshot.getDay()) : null,
+                changed.contains(Store.BUDGETS) ? copyBudgets(username) : null,
+                changed.contains(Store.TARGET_SAVINGS) ? targetSavings.getOrDefault(username, 0.0) : null));
+    }
+
+    /**
+     * Totals come from the store's running aggregates and the daily window from its
+     * per-day index, so this costs the same however many transactions the user has.
+     */
+    private UserSnapshot.Activity buildActivity(String username, int day) {
+        TransactionStore transactions = userTransactions.get(username);
+        int firstDay = day - UserSnapshot.DAYS_BEFORE;
+        int days = UserSnapshot.DAYS_BEFORE + UserSnapshot.DAYS_AFTER + 1;
+        long[] dailyIncome = new long[days];
+        long[] dailyExpenses = new long[days];
+        for (int i = 0; i < days; i++) {
+            dailyIncome[i] = transactions.sumCentsByDayRange("Income", null, firstDay + i, firstDay + i);
+            dailyExpenses[i] = transactions.sumCentsByDayRange("Expense", null, firstDay + i, firstDay + i);
+        }
+
+        return new UserSnapshot.Activity(
+                transactions.sumCents("Income", null) / 100.0,
+                transactions.sumCents("Expense", null) / 100.0,
+                expensesByCategory(transactions),
+                getMonthlySummary(transactions.sumCentsByMonth("Income")),
+                getMonthlySummary(transactions.sumCentsByMonth("Expense")),
+                transactions.listByDateDescending(null, UserSnapshot.RECENT_TRANSACTIONS),
+                firstDay, dailyIncome, dailyExpenses);
+    }
+
+    private Map<String, Budget> copyBudgets(String username) {
+        Map<String, Budget> copies = new HashMap<>();
+        for (Budget budget : userBudgets.getOrDefault(username, Collections.emptyMap()).values()) {
+            copies.put(budget.getCategory(), new Budget(budget.getCategory(), budget.getLimit(), budget.getSpent()));
+        }
+        return copies;
+    }
+
+    private Map<String, Double> getMonthlySummary(SortedMap<Integer, Long> monthlyCents) {
+        Map<String, Double> monthlyData = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Long> entry : monthlyCents.entrySet()) {
+            monthlyData.putIfAbsent(monthLabel(entry.getKey()), entry.getValue() / 100.0);
+        }
+        return monthlyData;
+    }
+
+    /**
+     * Label such as "OCT 2025" for a year * 12 + (month - 1) key, built once per month.
+     */
+    private String monthLabel(int yearMonth) {
+        return monthLabels.computeIfAbsent(yearMonth, key ->
+                Month.of(key % 12 + 1).toString().substring(0, 3) + " " + key / 12);
     }
 
     public double checkAndGrantBudgetRewards(String username, UserManager userManager) {
+        return readUser(username, false, () -> grantBudgetRewards(username, userManager));
+    }
+
+    private double grantBudgetRewards(String username, UserManager userManager) {
         Map<String, Budget> budgets = userBudgets.getOrDefault(username, Collections.emptyMap());
 
         double totalPointsEarned = 0.0;
@@ -287,6 +811,10 @@ public class BudgetManager {
     }
 
     public BudgetAdherenceSummary getBudgetAdherenceSummary(String username) {
+        return readUser(username, false, () -> budgetAdherence(username));
+    }
+
+    private BudgetAdherenceSummary budgetAdherence(String username) {
         Map<String, Budget> budgets = userBudgets.getOrDefault(username, Collections.emptyMap());
 
         int budgetsUnderLimit = 0;
@@ -317,29 +845,33 @@ public class BudgetManager {
     }
 
     public double removeExpenseAndCalculatePointAdjustment(String username, Transaction transaction) {
-        BudgetAdherenceSummary oldSummary = getBudgetAdherenceSummary(username);
-        double oldPoints = Math.floor(oldSummary.totalSavings / 100);
+        return writeUser(username, () -> {
+            loadUser(username);
+            BudgetAdherenceSummary oldSummary = budgetAdherence(username);
+            double oldPoints = Math.floor(oldSummary.totalSavings / 100);
 
-        removeExpense(username, transaction);
+            removeTransaction(username, transaction);
 
 
-        BudgetAdherenceSummary newSummary = getBudgetAdherenceSummary(username);
-        double newPoints = Math.floor(newSummary.totalSavings / 100);
+            BudgetAdherenceSummary newSummary = budgetAdherence(username);
+            double newPoints = Math.floor(newSummary.totalSavings / 100);
 
 
-        return oldPoints - newPoints;
+            return oldPoints - newPoints;
+        });
     }
 
 
 
     public boolean exportUserData(String username, String filePath) {
-        ensureUserExists(username);
+        return readUser(username, true, () -> writeExport(username, filePath));
+    }
+
+    private boolean writeExport(String username, String filePath) {
         try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
             writer.println("Date,Type,Category,Description,Amount");
 
-            List<Transaction> allTransactions = userTransactions.get(username).stream()
-                    .sorted(Comparator.comparing(Transaction::getDate))
-                    .collect(Collectors.toList());
+            List<Transaction> allTransactions = userTransactions.get(username).listByDateAscending();
 
             for (Transaction t : allTransactions) {
                 writer.printf("%s,%s,%s,%s,%.2f%n",
@@ -357,39 +889,110 @@ public class BudgetManager {
         }
     }
 
+    /**
+     * Drop a user's data. On disk this is a single shard delete; other users are untouched.
+     */
     public void clearUserData(String username) {
-        userBudgets.remove(username);
-        userTransactions.remove(username);
+        updateUser(username, () -> {
+            // Nothing needs to be read from a shard that is about to be deleted
+            loadedUsers.add(username);
+            lastAccess.put(username, System.currentTimeMillis());
+
+            userBudgets.remove(username);
+            userTransactions.remove(username);
+            targetSavings.remove(username);
+
+            dataStore.journal(username).discardPending();
+            compactionRequested.remove(username);
+            flusher.markDirty(new ShardKey(username, Store.CLEAR));
+            unpublished.computeIfAbsent(username, u -> ConcurrentHashMap.newKeySet())
+                    .addAll(EnumSet.of(Store.BUDGETS, Store.TRANSACTIONS, Store.TARGET_SAVINGS));
+
+            ensureUserExists(username);
+        });
+    }
 
-        saveTransactions();
-        saveBudgets();
+    private void loadUserShard(String username) {
+        userBudgets.putIfAbsent(username, new HashMap<>());
+        userTransactions.putIfAbsent(username, new TransactionStore());
 
-        ensureUserExists(username);
+        Path csv = dataStore.shardFile(username, ShardedDataStore.TRANSACTIONS_FILE);
+        if (!readTransactionsSnapshot(username, dataStore.shardFile(username, ShardedDataStore.TRANSACTIONS_SNAPSHOT_FILE), csv)) {
+            readTransactions(csv);
+        }
+        int replayed = replayJournal(dataStore.journal(username));
+        readBudgets(dataStore.shardFile(username, ShardedDataStore.BUDGETS_FILE));
+        readTargetSavings(dataStore.shardFile(username, ShardedDataStore.TARGET_SAVINGS_FILE));
+
+        if (replayed > 0) {
+            compactionRequested.add(username);
+            flusher.markDirty(new ShardKey(username, Store.TRANSACTIONS));
+        }
+    }
+
+    /**
+     * One-time conversion of the old single-file layout into per-user shards.
+     * The old files are left in place but are no longer read once the manifest exists.
+     */
+    private void migrateLegacyFiles() {
+        readTransactions(Paths.get(TRANSACTIONS_CSV));
+        TransactionJournal legacyJournal = new TransactionJournal(TRANSACTIONS_JOURNAL);
+        replayJournal(legacyJournal);
+        readBudgets(Paths.get(BUDGETS_CSV));
+        readTargetSavings(Paths.get(TARGET_SAVINGS_CSV));
+
+        Set<String> usernames = new HashSet<>(userTransactions.keySet());
+        usernames.addAll(targetSavings.keySet());
+        for (String username : usernames) {
+            ensureUserExists(username);
+            saveUserData(username);
+        }
+        markChanged(null, Store.MANIFEST);
+        flusher.flush();
+
+        legacyJournal.truncate();
+        if (!usernames.isEmpty()) {
+            System.out.println("Migrated " + usernames.size() + " users to per-user storage");
+        }
+    }
+
+    /**
+     * Load a user's transactions from their binary snapshot if it was written from the
+     * current CSV. Returns false if the CSV has to be parsed instead.
+     */
+    private boolean readTransactionsSnapshot(String username, Path snapshot, Path csv) {
+        BinarySnapshot.Decoder decoder = BinarySnapshot.read(snapshot, TRANSACTIONS_SNAPSHOT_KIND, csv);
+        if (decoder == null) {
+            return false;
+        }
+        try {
+            userTransactions.put(username, TransactionStore.readSnapshot(decoder));
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("Error loading snapshot " + snapshot + ": " + e.getMessage());
+            return false;
+        }
     }
 
-    private void loadTransactions() {
-        if (!Files.exists(Paths.get(TRANSACTIONS_CSV))) {
+    private void readTransactions(Path path) {
+        if (!Files.exists(path)) {
             return;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(TRANSACTIONS_CSV))) {
-            String line;
-            reader.readLine();
+        try {
+            if (Files.size(path) >= ChunkedCsvLoader.PARALLEL_THRESHOLD_BYTES) {
+                readTransactionsInParallel(path);
+                return;
+            }
 
-            while ((line = reader.readLine()) != null) {
-                String[] data = line.split(DELIMITER, -1);
-                if (data.length >= 7) {
-                    String username = data[0];
-                    String date = data[1];
-                    String category = data[2];
-                    String description = unescapeCSV(data[3]);
-                    double amount = Double.parseDouble(data[4]);
-                    String type = data[5];
-                    String transactionId = data[6];
+            CsvCursor row = CsvCursor.open(path);
+            row.nextRow(); // Skip header
 
+            while (row.nextRow()) {
+                if (row.fieldCount() >= 7) {
+                    String username = row.getString(0);
                     ensureUserExists(username);
-                    Transaction transaction = new Transaction(date, category, description, amount, type, transactionId);
-                    userTransactions.get(username).add(transaction);
+                    addTransactionRow(userTransactions.get(username), row, 0);
                 }
             }
         } catch (IOException | NumberFormatException e) {
@@ -398,47 +1001,188 @@ public class BudgetManager {
         }
     }
 
-    private void saveTransactions() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(TRANSACTIONS_CSV))) {
-            writer.println(TRANSACTIONS_HEADER);
+    /**
+     * Memory-map a large transactions file and parse its chunks on the fork-join
+     * pool. Each chunk fills its own per-user stores, which are then appended to
+     * userTransactions in file order.
+     */
+    private void readTransactionsInParallel(Path path) throws IOException {
+        List<Map<String, TransactionStore>> partials = ChunkedCsvLoader.load(path, row -> {
+            Map<String, TransactionStore> partial = new LinkedHashMap<>();
+            while (row.nextRow()) {
+                if (row.fieldCount() >= 7) {
+                    addTransactionRow(partial.computeIfAbsent(row.getString(0), u -> new TransactionStore()), row, 0);
+                }
+            }
+            return partial;
+        });
 
-            for (Map.Entry<String, List<Transaction>> entry : userTransactions.entrySet()) {
-                String username = entry.getKey();
-                for (Transaction transaction : entry.getValue()) {
-                    writer.printf("%s,%s,%s,%s,%.2f,%s,%s%n",
-                            username,
-                            transaction.getDate(),
-                            transaction.getCategory(),
-                            escapeCSV(transaction.getDescription()),
-                            transaction.getAmount(),
-                            transaction.getType(),
-                            transaction.getId()
-                    );
+        for (Map<String, TransactionStore> partial : partials) {
+            for (Map.Entry<String, TransactionStore> entry : partial.entrySet()) {
+                ensureUserExists(entry.getKey());
+                userTransactions.get(entry.getKey()).addAll(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Replay changes made since the last snapshot. Records already present in the
+     * snapshot are skipped so a crash between compaction and truncation is harmless.
+     */
+    private int replayJournal(TransactionJournal journal) {
+        int replayed = journal.replay((op, record) -> {
+            try {
+                if (op.equals(TransactionJournal.OP_ADD) && record.fieldCount() >= 8) {
+                    String username = record.getString(1);
+                    TransactionStore transactions = userTransactions.get(username);
+                    if (transactions == null || transactions.indexOf(record.getString(7)) < 0) {
+                        ensureUserExists(username);
+                        addTransactionRow(userTransactions.get(username), record, 1);
+                    }
+                } else if (op.equals(TransactionJournal.OP_DELETE) && record.fieldCount() >= 3) {
+                    TransactionStore transactions = userTransactions.get(record.getString(1));
+                    int row = transactions != null ? transactions.indexOf(record.getString(2)) : -1;
+                    if (row >= 0) {
+                        transactions.remove(row);
+                    }
                 }
+            } catch (NumberFormatException e) {
+                System.err.println("Skipping bad journal record: " + e.getMessage());
             }
-            writer.flush();
-        } catch (IOException e) {
-            System.err.println("Error saving transactions: " + e.getMessage());
-            e.printStackTrace();
+        });
+
+        if (replayed > 0) {
+            System.out.println("Replayed " + replayed + " journal records");
         }
+        return replayed;
+    }
+
+    /**
+     * Add the transaction whose columns (username, date, category, description,
+     * amount, type, transaction_id) start at the given field. Dates and amounts are
+     * parsed straight from the cursor without creating a Transaction.
+     */
+    private static void addTransactionRow(TransactionStore store, CsvCursor row, int first) {
+        int epochDay = row.getEpochDay(first + 1);
+        long cents = TransactionStore.toCents(row.getDouble(first + 4));
+        store.add(epochDay, row.getString(first + 2), row.getString(first + 3),
+                cents, row.getString(first + 5), row.getString(first + 6));
     }
 
-    private void loadBudgets() {
-        if (!Files.exists(Paths.get(BUDGETS_CSV))) {
+    private String formatTransactionRow(String username, Transaction transaction) {
+        return String.format("%s,%s,%s,%s,%.2f,%s,%s",
+                username,
+                transaction.getDate(),
+                transaction.getCategory(),
+                escapeCSV(transaction.getDescription()),
+                transaction.getAmount(),
+                transaction.getType(),
+                transaction.getId()
+        );
+    }
+
+    /**
+     * Write one store unless it is unchanged since its last successful write. The
+     * version is read before the rows are rendered, so a change that races the write
+     * leaves the store dirty and it is written again.
+     */
+    private void writeStore(ShardKey key) {
+        if (key.store == Store.CLEAR) {
+            dataStore.deleteShard(key.username);
+            return;
+        }
+
+        long version = versions.getOrDefault(key, 0L);
+        boolean pending = key.store == Store.TRANSACTIONS
+                && (compactionRequested.contains(key.username) || dataStore.journal(key.username).hasPending());
+        if (!pending && version == writtenVersions.getOrDefault(key, 0L)) {
+            avoidedWrites.merge(key.store, 1L, Long::sum);
             return;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(BUDGETS_CSV))) {
-            String line;
-            reader.readLine();
+        boolean written = false;
+        switch (key.store) {
+            case MANIFEST:
+                written = dataStore.writeManifest();
+                break;
+            case BUDGETS:
+                written = writeBudgets(key.username);
+                break;
+            case TRANSACTIONS:
+                written = writeTransactions(key.username);
+                break;
+            case TARGET_SAVINGS:
+                written = writeTargetSavings(key.username);
+                break;
+        }
 
-            while ((line = reader.readLine()) != null) {
-                String[] data = line.split(DELIMITER, -1);
-                if (data.length >= 4) {
-                    String username = data[0];
-                    String category = data[1];
-                    double limit = Double.parseDouble(data[2]);
-                    double spent = Double.parseDouble(data[3]);
+        if (written) {
+            writtenVersions.merge(key, version, Math::max);
+        }
+    }
+
+    /**
+     * Append a user's queued journal records, or fold their journal into a fresh
+     * snapshot once it is large enough (or a full save was requested) and truncate it.
+     * Rows are rendered under the user's read lock; the disk write happens outside it.
+     */
+    private boolean writeTransactions(String username) {
+        TransactionJournal journal = dataStore.journal(username);
+        BinarySnapshot.Encoder[] snapshot = {new BinarySnapshot.Encoder()};
+        List<String> rows = withReadLock(username, () -> {
+            if (!compactionRequested.contains(username) && journal.getRecordCount() < JOURNAL_COMPACTION_THRESHOLD) {
+                return null;
+            }
+            List<String> rendered = new ArrayList<>();
+            TransactionStore transactions = userTransactions.getOrDefault(username, new TransactionStore());
+            for (Transaction transaction : transactions.list()) {
+                rendered.add(formatTransactionRow(username, transaction));
+            }
+            try {
+                transactions.writeSnapshot(snapshot[0]);
+            } catch (IOException e) {
+                snapshot[0] = null;
+            }
+            journal.discardPending();
+            compactionRequested.remove(username);
+            return rendered;
+        });
+
+        if (rows == null) {
+            journal.flushPending();
+            return !journal.hasPending();
+        }
+
+        Path path = dataStore.shardFile(username, ShardedDataStore.TRANSACTIONS_FILE);
+        if (ShardedDataStore.writeCsv(path, TRANSACTIONS_HEADER, rows)) {
+            // Written after the CSV so it records the stamp the CSV was left with
+            if (snapshot[0] != null) {
+                BinarySnapshot.write(dataStore.shardFile(username, ShardedDataStore.TRANSACTIONS_SNAPSHOT_FILE),
+                        TRANSACTIONS_SNAPSHOT_KIND, snapshot[0], path);
+            }
+            journal.truncate();
+            return true;
+        }
+        compactionRequested.add(username);
+        flusher.markDirty(new ShardKey(username, Store.TRANSACTIONS));
+        return false;
+    }
+
+    private void readBudgets(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try {
+            CsvCursor row = CsvCursor.open(path);
+            row.nextRow(); // Skip header
+
+            while (row.nextRow()) {
+                if (row.fieldCount() >= 4) {
+                    String username = row.getString(0);
+                    String category = row.getString(1);
+                    double limit = row.getDouble(2);
+                    double spent = row.getDouble(3);
 
                     ensureUserExists(username);
                     Budget budget = new Budget(category, limit, spent);
@@ -451,68 +1195,52 @@ public class BudgetManager {
         }
     }
 
-    private void saveBudgets() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(BUDGETS_CSV))) {
-            writer.println(BUDGETS_HEADER);
-
-            for (Map.Entry<String, Map<String, Budget>> userEntry : userBudgets.entrySet()) {
-                String username = userEntry.getKey();
-                for (Budget budget : userEntry.getValue().values()) {
-                    writer.printf("%s,%s,%.2f,%.2f%n",
-                            username,
-                            budget.getCategory(),
-                            budget.getLimit(),
-                            budget.getSpent()
-                    );
-                }
+    private boolean writeBudgets(String username) {
+        List<String> rows = withReadLock(username, () -> {
+            List<String> rendered = new ArrayList<>();
+            for (Budget budget : userBudgets.getOrDefault(username, Collections.emptyMap()).values()) {
+                rendered.add(String.format("%s,%s,%.2f,%.2f",
+                        username,
+                        budget.getCategory(),
+                        budget.getLimit(),
+                        budget.getSpent()
+                ));
             }
-            writer.flush();
-        } catch (IOException e) {
-            System.err.println("Error saving budgets: " + e.getMessage());
-            e.printStackTrace();
-        }
+            return rendered;
+        });
+        return ShardedDataStore.writeCsv(dataStore.shardFile(username, ShardedDataStore.BUDGETS_FILE), BUDGETS_HEADER, rows);
     }
 
-    private void loadTargetSavings() {
-        if (!Files.exists(Paths.get(TARGET_SAVINGS_CSV))) {
+    private void readTargetSavings(Path path) {
+        if (!Files.exists(path)) {
             return;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(TARGET_SAVINGS_CSV))) {
-            String line;
-            reader.readLine(); // Skip header
+        try {
+            CsvCursor row = CsvCursor.open(path);
+            row.nextRow(); // Skip header
 
-            while ((line = reader.readLine()) != null) {
-                String[] data = line.split(DELIMITER, -1);
-                if (data.length >= 2) {
-                    String username = data[0];
-                    double target = Double.parseDouble(data[1]);
+            while (row.nextRow()) {
+                if (row.fieldCount() >= 2) {
+                    String username = row.getString(0);
+                    double target = row.getDouble(1);
                     targetSavings.put(username, target);
                 }
             }
-            System.out.println("Target savings loaded for " + targetSavings.size() + " users");
         } catch (IOException | NumberFormatException e) {
             System.err.println("Error loading target savings: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    private void saveTargetSavings() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(TARGET_SAVINGS_CSV))) {
-            writer.println(TARGET_SAVINGS_HEADER);
-
-            for (Map.Entry<String, Double> entry : targetSavings.entrySet()) {
-                writer.printf("%s,%.2f%n",
-                        entry.getKey(),
-                        entry.getValue()
-                );
-            }
-            writer.flush();
-            System.out.println("Target savings saved for " + targetSavings.size() + " users");
-        } catch (IOException e) {
-            System.err.println("Error saving target savings: " + e.getMessage());
-            e.printStackTrace();
+    private boolean writeTargetSavings(String username) {
+        List<String> rows = new ArrayList<>();
+        Double target = targetSavings.get(username);
+        if (target != null) {
+            rows.add(String.format("%s,%.2f", username, target));
         }
+        return ShardedDataStore.writeCsv(dataStore.shardFile(username, ShardedDataStore.TARGET_SAVINGS_FILE),
+                TARGET_SAVINGS_HEADER, rows);
     }
 
 
@@ -528,13 +1256,6 @@ public class BudgetManager {
         return value;
     }
 
-    private String unescapeCSV(String value) {
-        if (value.startsWith("\"") && value.endsWith("\"")) {
-            value = value.substring(1, value.length() - 1).replace("\"\"", "\"");
-        }
-        return value;
-    }
-
     public static class BudgetAdherenceSummary {
         public final int totalBudgets;
         public final int budgetsUnderLimit;
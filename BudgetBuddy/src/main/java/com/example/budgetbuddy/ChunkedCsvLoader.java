@@ -0,0 +1,114 @@
+package com.example.budgetbuddy;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel loader for large CSV files. The file is memory-mapped, cut into chunks
+ * at record boundaries, and each chunk is parsed by its own CsvCursor on the
+ * common fork-join pool. Every chunk produces a partial result; the caller merges
+ * them in file order.
+ */
+public class ChunkedCsvLoader {
+
+    // Below this a single CsvCursor is as fast and avoids the thread hand-off
+    public static final long PARALLEL_THRESHOLD_BYTES = 8L * 1024 * 1024;
+
+    private static final long MIN_CHUNK_BYTES = 4L * 1024 * 1024;
+    private static final long SCAN_WINDOW_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Parses every record of one chunk into a partial result. Called concurrently,
+     * once per chunk, so implementations must not share mutable state.
+     */
+    public interface ChunkParser<T> {
+        T parse(CsvCursor chunk);
+    }
+
+    /**
+     * Parse a file chunk by chunk, skipping its header record.
+     * Returns one partial result per chunk, in file order.
+     */
+    public static <T> List<T> load(Path path, ChunkParser<T> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<long[]> chunks = findChunks(channel);
+
+            List<Callable<T>> tasks = new ArrayList<>(chunks.size());
+            for (long[] chunk : chunks) {
+                tasks.add(() -> {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+                    return parser.parse(new CsvCursor(buffer));
+                });
+            }
+
+            List<T> results = new ArrayList<>(tasks.size());
+            try {
+                for (Future<T> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while loading " + path, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException("Error loading " + path, e.getCause());
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Split the file after its header into roughly equal [start, end) ranges that end
+     * on a line break outside quotes, so quoted line breaks never split a record.
+     * This is one sequential pass over mapped windows; it only looks at bytes.
+     */
+    private static List<long[]> findChunks(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        long chunkCount = Math.max(1, Math.min(parallelism * 4L, size / MIN_CHUNK_BYTES));
+        long targetBytes = Math.max(1, size / chunkCount);
+
+        List<long[]> chunks = new ArrayList<>();
+        long start = -1; // Unknown until the header has been passed
+        long nextCut = 0;
+        boolean inQuotes = false;
+
+        for (long windowStart = 0; windowStart < size; windowStart += SCAN_WINDOW_BYTES) {
+            long windowLength = Math.min(SCAN_WINDOW_BYTES, size - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+
+            for (int i = 0; i < windowLength; i++) {
+                byte b = window.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    long offset = windowStart + i;
+                    if (start < 0) {
+                        start = offset + 1;
+                        nextCut = start + targetBytes;
+                    } else if (offset + 1 >= nextCut) {
+                        chunks.add(new long[]{start, offset + 1});
+                        start = offset + 1;
+                        nextCut = start + targetBytes;
+                    }
+                }
+            }
+        }
+
+        if (start >= 0 && start < size) {
+            chunks.add(new long[]{start, size});
+        }
+        return chunks;
+    }
+}
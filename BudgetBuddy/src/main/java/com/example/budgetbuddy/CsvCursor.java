@@ -0,0 +1,258 @@
+package com.example.budgetbuddy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * RFC 4180 CSV reader over a buffer of UTF-8 bytes. A single cursor walks the
+ * records in place: nextRow() notes where each field starts and ends, and the
+ * typed getters parse numbers and dates straight from the bytes. Strings are only
+ * created for fields that are read as strings. Quoted fields may contain commas,
+ * doubled quotes and line breaks.
+ */
+public class CsvCursor {
+
+    private static final byte COMMA = ',';
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    // Exact powers of ten; a mantissa below 2^53 divided by one of these is correctly rounded
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final ByteBuffer buffer;
+    private final int end;
+    private int position;
+
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] quoted = new boolean[16];
+    private int fieldCount;
+    private byte[] scratch = new byte[64];
+
+    /**
+     * Read the bytes between the buffer's position and limit. The buffer itself is not moved.
+     */
+    public CsvCursor(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.end = buffer.limit();
+    }
+
+    public static CsvCursor open(Path path) throws IOException {
+        return new CsvCursor(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+
+    /**
+     * Advance to the next record. Returns false once the input is exhausted.
+     * A blank line is a record with one empty field.
+     */
+    public boolean nextRow() {
+        if (position >= end) {
+            return false;
+        }
+
+        fieldCount = 0;
+        int i = position;
+        while (true) {
+            int start = i;
+            int fieldEnd;
+            boolean isQuoted = i < end && buffer.get(i) == QUOTE;
+
+            if (isQuoted) {
+                start = ++i;
+                while (i < end) {
+                    if (buffer.get(i) == QUOTE) {
+                        if (i + 1 < end && buffer.get(i + 1) == QUOTE) {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                fieldEnd = i;
+                // Skip the closing quote and anything stray before the next separator
+                while (i < end && !isSeparator(buffer.get(i))) {
+                    i++;
+                }
+            } else {
+                while (i < end && !isSeparator(buffer.get(i))) {
+                    i++;
+                }
+                fieldEnd = i;
+            }
+            addField(start, fieldEnd, isQuoted);
+
+            if (i >= end) {
+                position = end;
+                return true;
+            }
+            byte separator = buffer.get(i);
+            if (separator == COMMA) {
+                i++;
+                continue;
+            }
+            if (separator == CR && i + 1 < end && buffer.get(i + 1) == LF) {
+                i++;
+            }
+            position = i + 1;
+            return true;
+        }
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public boolean isEmpty(int field) {
+        return ends[field] == starts[field];
+    }
+
+    /**
+     * The field's text with surrounding quotes removed and doubled quotes collapsed.
+     */
+    public String getString(int field) {
+        int start = starts[field];
+        int length = ends[field] - start;
+        if (length == 0) {
+            return "";
+        }
+
+        if (!quoted[field] && buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        int count = 0;
+        for (int i = start; i < start + length; i++) {
+            byte b = buffer.get(i);
+            scratch[count++] = b;
+            if (b == QUOTE && quoted[field]) {
+                i++;
+            }
+        }
+        return new String(scratch, 0, count, StandardCharsets.UTF_8);
+    }
+
+    public int getInt(int field) {
+        long value = getLong(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw numberFormatError(field);
+        }
+        return (int) value;
+    }
+
+    public long getLong(int field) {
+        int i = starts[field];
+        int fieldEnd = ends[field];
+        boolean negative = i < fieldEnd && buffer.get(i) == '-';
+        if (negative || (i < fieldEnd && buffer.get(i) == '+')) {
+            i++;
+        }
+        if (i == fieldEnd || fieldEnd - i > 18) {
+            return Long.parseLong(getString(field).trim());
+        }
+
+        long value = 0;
+        for (; i < fieldEnd; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.parseLong(getString(field).trim());
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Plain decimals such as 1234.50 are parsed from the bytes; anything else
+     * (exponents, very long mantissas) falls back to Double.parseDouble.
+     */
+    public double getDouble(int field) {
+        int i = starts[field];
+        int fieldEnd = ends[field];
+        boolean negative = i < fieldEnd && buffer.get(i) == '-';
+        if (negative || (i < fieldEnd && buffer.get(i) == '+')) {
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < fieldEnd; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9 || ++digits > 15) {
+                return Double.parseDouble(getString(field));
+            }
+            mantissa = mantissa * 10 + digit;
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+        if (digits == 0) {
+            return Double.parseDouble(getString(field));
+        }
+
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * A yyyy-MM-dd field as days since 1970-01-01.
+     */
+    public int getEpochDay(int field) {
+        int start = starts[field];
+        if (ends[field] - start != 10 || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-') {
+            throw new NumberFormatException("Invalid date: " + getString(field));
+        }
+        return TransactionStore.epochDayOf(digits(field, start, 4), digits(field, start + 5, 2),
+                digits(field, start + 8, 2));
+    }
+
+    private int digits(int field, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid date: " + getString(field));
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private NumberFormatException numberFormatError(int field) {
+        return new NumberFormatException("Invalid number: " + getString(field));
+    }
+
+    private void addField(int start, int fieldEnd, boolean isQuoted) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+            quoted = Arrays.copyOf(quoted, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = fieldEnd;
+        quoted[fieldCount] = isQuoted;
+        fieldCount++;
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == COMMA || b == LF || b == CR;
+    }
+}
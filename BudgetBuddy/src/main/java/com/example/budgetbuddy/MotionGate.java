@@ -0,0 +1,85 @@
+package com.example.budgetbuddy;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Decides whether a webcam frame is worth a full decode. Each frame is reduced to a
+ * small grid of luma samples and compared with the previous frame. A view that has
+ * not changed since a failed decode will fail again, so those frames are skipped;
+ * frames while the view moves are decoded, and so is the first still frame after
+ * movement, which is usually the sharpest. A still view is retried now and then in
+ * case focus or exposure has crept in below the threshold.
+ *
+ * Not thread-safe; used from the decode thread only.
+ */
+public class MotionGate {
+
+    private static final int GRID_WIDTH = 32;
+    private static final int GRID_HEIGHT = 24;
+    // A sample has changed when its luma moves by more than sensor noise does, and the
+    // view has moved when about one percent of the samples changed
+    private static final int SAMPLE_THRESHOLD = 24;
+    private static final int MIN_CHANGED_SAMPLES = 8;
+    private static final long RETRY_MILLIS = 1000;
+
+    private int[] previous;
+    private int[] current = new int[GRID_WIDTH * GRID_HEIGHT];
+    private boolean moving;
+    private boolean lastAttemptFailed;
+    private long lastAttemptMillis;
+
+    /**
+     * Sample the frame and decide. Call attempted() after decoding a frame this approved.
+     */
+    public boolean shouldDecode(BufferedImage frame) {
+        sample(frame, current);
+        boolean first = previous == null;
+        boolean changed = !first && changedSamples(previous, current) >= MIN_CHANGED_SAMPLES;
+        int[] swap = previous;
+        previous = current;
+        current = swap != null ? swap : new int[GRID_WIDTH * GRID_HEIGHT];
+
+        if (first) {
+            return true;
+        }
+        if (changed) {
+            moving = true;
+            return true;
+        }
+        if (moving) {
+            // Motion has settled
+            moving = false;
+            return true;
+        }
+        return !lastAttemptFailed || System.currentTimeMillis() - lastAttemptMillis >= RETRY_MILLIS;
+    }
+
+    public void attempted(boolean found) {
+        lastAttemptFailed = !found;
+        lastAttemptMillis = System.currentTimeMillis();
+    }
+
+    private static void sample(BufferedImage frame, int[] grid) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        int i = 0;
+        for (int gy = 0; gy < GRID_HEIGHT; gy++) {
+            int y = (gy * 2 + 1) * height / (GRID_HEIGHT * 2);
+            for (int gx = 0; gx < GRID_WIDTH; gx++) {
+                int x = (gx * 2 + 1) * width / (GRID_WIDTH * 2);
+                int rgb = frame.getRGB(x, y);
+                grid[i++] = (306 * ((rgb >> 16) & 0xFF) + 601 * ((rgb >> 8) & 0xFF) + 117 * (rgb & 0xFF)) >> 10;
+            }
+        }
+    }
+
+    private static int changedSamples(int[] a, int[] b) {
+        int changed = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (Math.abs(a[i] - b[i]) > SAMPLE_THRESHOLD) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+}
@@ -13,16 +13,67 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.FileSystems;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 
 
 public class QRCodeGenerator {
 
     private static final int DEFAULT_SIZE = 300;
+    // Saved user QR images; also part of their content hash, so a size change regenerates them
+    private static final int USER_QR_SIZE = 400;
     private static final String DEFAULT_FORMAT = "PNG";
+    private static final int MARGIN = 1;
+
+    // Generated images are kept for the screens that show the same user's QR again and again
+    private static final int CACHE_SIZE = 32;
+
+    private static final Map<CacheKey, BufferedImage> imageCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, BufferedImage> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private static long cacheHits;
+    private static long cacheMisses;
+    private static long diskReuses;
+
+    private static final class CacheKey {
+        private final String text;
+        private final int width;
+        private final int height;
+        private final ErrorCorrectionLevel level;
+
+        CacheKey(String text, int width, int height, ErrorCorrectionLevel level) {
+            this.text = text;
+            this.width = width;
+            this.height = height;
+            this.level = level;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof CacheKey)) return false;
+            CacheKey other = (CacheKey) obj;
+            return width == other.width && height == other.height
+                    && level == other.level && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(text, width, height, level);
+        }
+    }
 
     /**
      * Generate a QR code image from text and save it to a file
@@ -37,17 +88,10 @@ public class QRCodeGenerator {
     public static void generateQRCodeImage(String text, int width, int height, String filePath)
             throws WriterException, IOException {
 
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-
-        Map<EncodeHintType, Object> hints = new HashMap<>();
-        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H);
-        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
-        hints.put(EncodeHintType.MARGIN, 1);
-
-        BitMatrix bitMatrix = qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, width, height, hints);
-
-        Path path = FileSystems.getDefault().getPath(filePath);
-        MatrixToImageWriter.writeToPath(bitMatrix, DEFAULT_FORMAT, path);
+        BufferedImage image = generateQRCodeImage(text, width, height);
+        if (!ImageIO.write(image, DEFAULT_FORMAT, new File(filePath))) {
+            throw new IOException("Could not write " + DEFAULT_FORMAT + " to " + filePath);
+        }
 
         System.out.println("✓ QR Code generated: " + filePath);
     }
@@ -63,17 +107,35 @@ public class QRCodeGenerator {
      */
     public static BufferedImage generateQRCodeImage(String text, int width, int height)
             throws WriterException {
+        return generateQRCodeImage(text, width, height, ErrorCorrectionLevel.H);
+    }
 
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-
-        Map<EncodeHintType, Object> hints = new HashMap<>();
-        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H);
-        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
-        hints.put(EncodeHintType.MARGIN, 1);
+    /**
+     * Generate a QR code BufferedImage, or return the cached one for the same text,
+     * size and error correction level. Cached images are shared, so callers must not
+     * draw on them.
+     *
+     * @param level Error correction level
+     * @throws WriterException If encoding fails
+     */
+    public static BufferedImage generateQRCodeImage(String text, int width, int height, ErrorCorrectionLevel level)
+            throws WriterException {
 
-        BitMatrix bitMatrix = qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, width, height, hints);
+        CacheKey key = new CacheKey(text, width, height, level);
+        synchronized (imageCache) {
+            BufferedImage cached = imageCache.get(key);
+            if (cached != null) {
+                cacheHits++;
+                return cached;
+            }
+            cacheMisses++;
+        }
 
-        return MatrixToImageWriter.toBufferedImage(bitMatrix);
+        BufferedImage image = MatrixToImageWriter.toBufferedImage(encode(text, width, height, level));
+        synchronized (imageCache) {
+            imageCache.put(key, image);
+        }
+        return image;
     }
 
     /**
@@ -90,7 +152,8 @@ public class QRCodeGenerator {
     }
 
     /**
-     * Generate a QR code for a user account
+     * Generate a QR code for a user account. An existing image is kept as it is if the
+     * hashes recorded next to it show it already holds this code and is unchanged.
      *
      * @param username Username for the account
      * @param qrCode The unique QR code string
@@ -111,7 +174,20 @@ public class QRCodeGenerator {
         String fileName = username + "_QRCode.png";
         String filePath = outputDirectory + File.separator + fileName;
 
-        generateQRCodeImage(qrCode, 400, 400, filePath);
+        String contentHash = sha256((qrCode + "\n" + USER_QR_SIZE + "x" + USER_QR_SIZE + "\n" + ErrorCorrectionLevel.H + "\n" + MARGIN)
+                .getBytes(StandardCharsets.UTF_8));
+        Path image = Paths.get(filePath);
+        Path hashFile = Paths.get(filePath + ".sha256");
+        if (isUpToDate(image, hashFile, contentHash)) {
+            synchronized (imageCache) {
+                diskReuses++;
+            }
+            return filePath;
+        }
+
+        generateQRCodeImage(qrCode, USER_QR_SIZE, USER_QR_SIZE, filePath);
+        Files.write(hashFile, (contentHash + " " + sha256(Files.readAllBytes(image)))
+                .getBytes(StandardCharsets.UTF_8));
 
         return filePath;
     }
@@ -130,4 +206,66 @@ public class QRCodeGenerator {
             return null;
         }
     }
+
+    public static long getCacheHitCount() {
+        synchronized (imageCache) {
+            return cacheHits;
+        }
+    }
+
+    public static long getCacheMissCount() {
+        synchronized (imageCache) {
+            return cacheMisses;
+        }
+    }
+
+    /**
+     * How many times generateUserQRCode kept an existing PNG instead of writing a new one.
+     */
+    public static long getDiskReuseCount() {
+        synchronized (imageCache) {
+            return diskReuses;
+        }
+    }
+
+    private static BitMatrix encode(String text, int width, int height, ErrorCorrectionLevel level)
+            throws WriterException {
+
+        QRCodeWriter qrCodeWriter = new QRCodeWriter();
+
+        Map<EncodeHintType, Object> hints = new HashMap<>();
+        hints.put(EncodeHintType.ERROR_CORRECTION, level);
+        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
+        hints.put(EncodeHintType.MARGIN, MARGIN);
+
+        return qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, width, height, hints);
+    }
+
+    /**
+     * The hash file holds the hash of what was encoded and the hash of the PNG that was
+     * written; both must still match.
+     */
+    private static boolean isUpToDate(Path image, Path hashFile, String contentHash) {
+        if (!Files.exists(image) || !Files.exists(hashFile)) {
+            return false;
+        }
+        try {
+            String[] hashes = new String(Files.readAllBytes(hashFile), StandardCharsets.UTF_8).trim().split(" ");
+            return hashes.length == 2
+                    && hashes[0].equals(contentHash)
+                    && hashes[1].equals(sha256(Files.readAllBytes(image)));
+        } catch (IOException e) {
+            System.err.println("Error checking QR code image: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
\ No newline at end of file
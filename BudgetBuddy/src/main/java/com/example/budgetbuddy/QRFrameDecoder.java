@@ -0,0 +1,282 @@
+package com.example.budgetbuddy;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.ChecksumException;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.FormatException;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.multi.qrcode.QRCodeMultiReader;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * QR-only decoder that keeps its reader and luminance buffer between frames.
+ * Luminance is computed straight from the image's raster into a reused byte array,
+ * optionally only for a region of interest, and wrapped without copying.
+ *
+ * Instances are not thread-safe; use forCurrentThread() to get this thread's one.
+ */
+public class QRFrameDecoder {
+
+    private static final ThreadLocal<QRFrameDecoder> PER_THREAD = ThreadLocal.withInitial(QRFrameDecoder::new);
+
+    private final QRCodeReader reader = new QRCodeReader();
+    private final QRCodeMultiReader multiReader = new QRCodeMultiReader();
+    private final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+    private final Map<DecodeHintType, Object> tryHarderHints;
+    private byte[] luminance = new byte[0];
+    private byte[] rotated = new byte[0];
+    private int[] rowPixels = new int[0];
+
+    public QRFrameDecoder() {
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singletonList(BarcodeFormat.QR_CODE));
+        tryHarderHints = new EnumMap<>(hints);
+        tryHarderHints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+    }
+
+    public static QRFrameDecoder forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+    /**
+     * Decode the QR code in the image, or in the region of interest if one is given.
+     * Checksum and format errors are reported as NotFoundException, like MultiFormatReader.
+     */
+    public Result decode(BufferedImage image, Rectangle regionOfInterest) throws NotFoundException {
+        BinaryBitmap bitmap = toBitmap(image, regionOfInterest, false, false);
+        try {
+            return reader.decode(bitmap, hints);
+        } catch (ChecksumException | FormatException e) {
+            throw NotFoundException.getNotFoundInstance();
+        } finally {
+            reader.reset();
+        }
+    }
+
+    /**
+     * Decode every QR code in the image, e.g. several receipts laid out side by side.
+     */
+    public Result[] decodeMultiple(BufferedImage image) throws NotFoundException {
+        return multiReader.decodeMultiple(toBitmap(image, null, false, false), hints);
+    }
+
+    /**
+     * The distinct texts of all QR codes in the image, in the order they were found;
+     * empty if there are none. Falls back to the single-code reader, whose detector
+     * copes better with a lone code that is small or skewed.
+     */
+    public List<String> decodeAllText(BufferedImage image) {
+        return decodeAllText(image, false, false, false);
+    }
+
+    /**
+     * decodeAllText on a variant of the image: turned a quarter turn counterclockwise,
+     * with light and dark swapped, and/or searched with ZXing's slower TRY_HARDER.
+     */
+    public List<String> decodeAllText(BufferedImage image, boolean rotate, boolean invert, boolean tryHarder) {
+        Map<DecodeHintType, Object> decodeHints = tryHarder ? tryHarderHints : hints;
+        Set<String> texts = new LinkedHashSet<>();
+        try {
+            // Both readers share the bitmap, which binarizes once and caches the result
+            BinaryBitmap bitmap = toBitmap(image, null, rotate, invert);
+            try {
+                for (Result result : multiReader.decodeMultiple(bitmap, decodeHints)) {
+                    texts.add(result.getText());
+                }
+            } catch (NotFoundException e) {
+                texts.add(reader.decode(bitmap, decodeHints).getText());
+            }
+        } catch (ReaderException e) {
+            // No readable code
+        } finally {
+            reader.reset();
+        }
+        return new ArrayList<>(texts);
+    }
+
+    /**
+     * The decoded text, or null if the image holds no readable QR code.
+     */
+    public String decodeText(BufferedImage image) {
+        try {
+            return decode(image, null).getText();
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A TYPE_BYTE_GRAY copy of the image holding exactly the luminance the decoder sees.
+     */
+    public BufferedImage toGray(BufferedImage image) {
+        BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        byte[] target = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        fillLuminance(image, new Rectangle(0, 0, image.getWidth(), image.getHeight()), target);
+        return gray;
+    }
+
+    private BinaryBitmap toBitmap(BufferedImage image, Rectangle regionOfInterest, boolean rotate, boolean invert)
+            throws NotFoundException {
+        Rectangle region = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+        if (regionOfInterest != null) {
+            region = region.intersection(regionOfInterest);
+            if (region.isEmpty()) {
+                throw NotFoundException.getNotFoundInstance();
+            }
+        }
+
+        int size = region.width * region.height;
+        if (luminance.length < size) {
+            luminance = new byte[size];
+        }
+        fillLuminance(image, region, luminance);
+
+        byte[] pixels = luminance;
+        int width = region.width;
+        int height = region.height;
+        if (rotate) {
+            if (rotated.length < size) {
+                rotated = new byte[size];
+            }
+            // Counterclockwise: column x becomes row (width - 1 - x)
+            for (int y = 0; y < height; y++) {
+                int in = y * width;
+                for (int x = 0; x < width; x++) {
+                    rotated[(width - 1 - x) * height + y] = luminance[in + x];
+                }
+            }
+            pixels = rotated;
+            width = region.height;
+            height = region.width;
+        }
+
+        LuminanceSource source = new PlanarYUVLuminanceSource(pixels, width, height, 0, 0, width, height, false);
+        if (invert) {
+            source = source.invert();
+        }
+        return new BinaryBitmap(new HybridBinarizer(source));
+    }
+
+    /**
+     * Same weights as ZXing's BufferedImageLuminanceSource, with transparent pixels
+     * treated as white. Common webcam and ImageIO layouts are read from the backing
+     * array; anything else goes through getRGB one row at a time.
+     */
+    private void fillLuminance(BufferedImage image, Rectangle region, byte[] target) {
+        Raster raster = image.getRaster();
+        boolean untranslated = raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                && raster.getDataBuffer().getOffset() == 0;
+
+        if (untranslated && raster.getDataBuffer() instanceof DataBufferByte
+                && raster.getSampleModel() instanceof ComponentSampleModel) {
+            ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+            byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+            int[] offsets = model.getBandOffsets();
+            // Palette images also have one byte band, but it holds indexes, not luma
+            if (offsets.length == 1 && image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+                fillFromGray(data, model.getScanlineStride(), model.getPixelStride(), offsets[0], region, target);
+                return;
+            }
+            if ((offsets.length == 3 || offsets.length == 4) && image.getType() != BufferedImage.TYPE_CUSTOM) {
+                fillFromBytes(data, model, offsets, region, target);
+                return;
+            }
+        }
+
+        if (untranslated && raster.getDataBuffer() instanceof DataBufferInt
+                && (image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_INT_ARGB)) {
+            int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+            boolean alpha = image.getType() == BufferedImage.TYPE_INT_ARGB;
+            int out = 0;
+            for (int y = region.y; y < region.y + region.height; y++) {
+                int in = y * image.getWidth() + region.x;
+                for (int x = 0; x < region.width; x++) {
+                    target[out++] = luma(data[in++], alpha);
+                }
+            }
+            return;
+        }
+
+        if (rowPixels.length < region.width) {
+            rowPixels = new int[region.width];
+        }
+        int out = 0;
+        for (int y = region.y; y < region.y + region.height; y++) {
+            image.getRGB(region.x, y, region.width, 1, rowPixels, 0, region.width);
+            for (int x = 0; x < region.width; x++) {
+                target[out++] = luma(rowPixels[x], true);
+            }
+        }
+    }
+
+    private static void fillFromGray(byte[] data, int scanline, int pixelStride, int offset, Rectangle region, byte[] target) {
+        int out = 0;
+        for (int y = region.y; y < region.y + region.height; y++) {
+            int in = y * scanline + region.x * pixelStride + offset;
+            if (pixelStride == 1) {
+                System.arraycopy(data, in, target, out, region.width);
+                out += region.width;
+            } else {
+                for (int x = 0; x < region.width; x++, in += pixelStride) {
+                    target[out++] = data[in];
+                }
+            }
+        }
+    }
+
+    /**
+     * Interleaved RGB or RGBA bytes in any band order, e.g. TYPE_3BYTE_BGR from the webcam.
+     */
+    private static void fillFromBytes(byte[] data, ComponentSampleModel model, int[] offsets, Rectangle region, byte[] target) {
+        int scanline = model.getScanlineStride();
+        int pixelStride = model.getPixelStride();
+        int red = offsets[0];
+        int green = offsets[1];
+        int blue = offsets[2];
+        int alpha = offsets.length == 4 ? offsets[3] : -1;
+
+        int out = 0;
+        for (int y = region.y; y < region.y + region.height; y++) {
+            int in = y * scanline + region.x * pixelStride;
+            for (int x = 0; x < region.width; x++, in += pixelStride) {
+                if (alpha >= 0 && data[in + alpha] == 0) {
+                    target[out++] = (byte) 0xFF;
+                    continue;
+                }
+                int r = data[in + red] & 0xFF;
+                int g = data[in + green] & 0xFF;
+                int b = data[in + blue] & 0xFF;
+                target[out++] = (byte) ((306 * r + 601 * g + 117 * b + 0x200) >> 10);
+            }
+        }
+    }
+
+    private static byte luma(int argb, boolean alpha) {
+        if (alpha && (argb >>> 24) == 0) {
+            return (byte) 0xFF;
+        }
+        int r = (argb >> 16) & 0xFF;
+        int g = (argb >> 8) & 0xFF;
+        int b = argb & 0xFF;
+        return (byte) ((306 * r + 601 * g + 117 * b + 0x200) >> 10);
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.budgetbuddy;
+
+import java.awt.image.BufferedImage;
+import java.util.function.Consumer;
+
+/**
+ * Webcam QR scanning in two stages. Frames arrive on the WebcamService capture thread,
+ * which shows each one in the preview and drops it into a single-slot mailbox. The
+ * decode thread always takes the newest frame; frames that arrive while it is busy
+ * replace each other, so a slow decode never holds up the preview and the decoder
+ * never works through a backlog of stale frames. A MotionGate in front of the decoder
+ * skips frames of an unchanged view that already failed to decode.
+ */
+public class QRScanPipeline<T> implements WebcamService.Listener {
+
+    /**
+     * Returns what was decoded from a frame (one code's text, or all of them), or null
+     * if there was nothing.
+     */
+    public interface FrameDecoder<T> {
+        T decode(BufferedImage frame);
+    }
+
+    /**
+     * Receives decoded results on the decode thread. Returns true to stop scanning.
+     */
+    public interface ResultHandler<T> {
+        boolean onResult(T result);
+    }
+
+    private final WebcamService camera;
+    private final Consumer<BufferedImage> preview;
+    private final FrameDecoder<T> decoder;
+    private final ResultHandler<T> handler;
+    private final Consumer<String> unavailable;
+    private final MotionGate gate = new MotionGate();
+
+    private BufferedImage mailbox;
+    private long framesCaptured;
+    private long framesDropped;
+    private long framesGated;
+    private long framesDecoded;
+    private volatile boolean running;
+    private Thread decodeThread;
+
+    /**
+     * @param preview Called on the capture thread with every frame
+     * @param unavailable Called with a message if the camera cannot be opened
+     */
+    public QRScanPipeline(WebcamService camera, Consumer<BufferedImage> preview, FrameDecoder<T> decoder,
+                          ResultHandler<T> handler, Consumer<String> unavailable) {
+        this.camera = camera;
+        this.preview = preview;
+        this.decoder = decoder;
+        this.handler = handler;
+        this.unavailable = unavailable;
+    }
+
+    /**
+     * Subscribe to the camera and start decoding. Returns immediately, even if the
+     * camera is still opening.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        decodeThread = new Thread(this::decodeLoop, "qr-decode");
+        decodeThread.setDaemon(true);
+        decodeThread.start();
+        camera.subscribe(this);
+    }
+
+    /**
+     * Unsubscribe and stop the decode thread. Returns without waiting for it; a decode
+     * in progress finishes but its result is ignored. The camera itself is left to
+     * WebcamService.
+     */
+    public void stop() {
+        camera.unsubscribe(this);
+        synchronized (this) {
+            running = false;
+            mailbox = null;
+            notifyAll();
+            if (decodeThread != null) {
+                decodeThread.interrupt();
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public synchronized long getFramesCaptured() {
+        return framesCaptured;
+    }
+
+    /**
+     * Frames that were replaced in the mailbox before the decoder got to them.
+     */
+    public synchronized long getFramesDropped() {
+        return framesDropped;
+    }
+
+    /**
+     * Frames the motion gate skipped because the view had not changed.
+     */
+    public synchronized long getFramesGated() {
+        return framesGated;
+    }
+
+    public synchronized long getFramesDecoded() {
+        return framesDecoded;
+    }
+
+    @Override
+    public void onFrame(BufferedImage frame) {
+        if (!running) {
+            return;
+        }
+        preview.accept(frame);
+        offer(frame);
+    }
+
+    @Override
+    public void onUnavailable(String message) {
+        if (running) {
+            unavailable.accept(message);
+        }
+    }
+
+    private void decodeLoop() {
+        while (running) {
+            try {
+                BufferedImage frame = takeLatest();
+                if (frame == null) {
+                    break;
+                }
+                if (!gate.shouldDecode(frame)) {
+                    count(true);
+                    continue;
+                }
+                count(false);
+                T result = decoder.decode(frame);
+                gate.attempted(result != null);
+                if (result != null && running && handler.onResult(result)) {
+                    running = false;
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private synchronized void count(boolean gated) {
+        if (gated) {
+            framesGated++;
+        } else {
+            framesDecoded++;
+        }
+    }
+
+    private synchronized void offer(BufferedImage frame) {
+        framesCaptured++;
+        if (mailbox != null) {
+            framesDropped++;
+        }
+        mailbox = frame;
+        notifyAll();
+    }
+
+    /**
+     * Wait for a frame and take it, leaving the mailbox empty. Returns null once stopped.
+     */
+    private synchronized BufferedImage takeLatest() throws InterruptedException {
+        while (mailbox == null && running) {
+            wait();
+        }
+        BufferedImage frame = mailbox;
+        mailbox = null;
+        return frame;
+    }
+}
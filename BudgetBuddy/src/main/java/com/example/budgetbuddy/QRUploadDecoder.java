@@ -0,0 +1,275 @@
+package com.example.budgetbuddy;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Decodes QR codes in uploaded images, which are often full-resolution phone photos.
+ * Binarizing 12 megapixels is slow and the detector does worse on them than on a
+ * smaller copy, so the photo is turned into an image pyramid of grey levels, each half
+ * the size of the one before. Every level is tried as it is, turned a quarter turn,
+ * and with light and dark swapped. The attempts run in parallel and the first one
+ * that finds a code wins. Only if all of them fail is ZXing's slow TRY_HARDER search
+ * tried, on the largest level and on the original.
+ */
+public class QRUploadDecoder {
+
+    // Levels larger than this are only used by the last-resort attempts
+    private static final int MAX_FAST_SIDE = 2048;
+    // A level smaller than this is too coarse for a QR code photographed from a distance
+    private static final int MIN_SIDE = 300;
+
+    // Shared by every QR upload and batch import. An attempt cannot be stopped once
+    // ZXing has started it, so when one attempt wins the others keep their threads
+    // until they finish; a core is left free so they never starve the UI or webcam.
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)), r -> {
+                Thread thread = new Thread(r, "qr-decode");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * How one attempt went.
+     */
+    public static class Attempt {
+        private final String label;
+        private final double millis;
+        private final boolean found;
+
+        Attempt(String label, double millis, boolean found) {
+            this.label = label;
+            this.millis = millis;
+            this.found = found;
+        }
+
+        public String getLabel() { return label; }
+        public double getMillis() { return millis; }
+        public boolean isFound() { return found; }
+    }
+
+    /**
+     * The codes found, if any, and the time each attempt took. Attempts still running
+     * when another one succeeded are abandoned and not listed.
+     */
+    public static class Report {
+        private final List<String> texts;
+        private final List<Attempt> attempts;
+        private final double totalMillis;
+
+        Report(List<String> texts, List<Attempt> attempts, double totalMillis) {
+            this.texts = texts;
+            this.attempts = attempts;
+            this.totalMillis = totalMillis;
+        }
+
+        /** Distinct code texts from the winning attempt; empty if nothing was found. */
+        public List<String> getTexts() { return texts; }
+        public List<Attempt> getAttempts() { return attempts; }
+        public double getTotalMillis() { return totalMillis; }
+
+        /**
+         * One line for a status bar, e.g. "1 code(s) found in 23.4 ms, 3 attempt(s)".
+         */
+        public String getSummary() {
+            return String.format("%s in %.1f ms, %d attempt(s)",
+                    texts.isEmpty() ? "No QR code found" : texts.size() + " code(s) found", totalMillis, attempts.size());
+        }
+
+        /**
+         * The summary followed by one line per attempt with its time.
+         */
+        public String getDetails() {
+            StringBuilder sb = new StringBuilder(getSummary());
+            for (Attempt attempt : attempts) {
+                sb.append(String.format("%n  %-28s %8.1f ms  %s", attempt.label, attempt.millis,
+                        attempt.found ? "found" : "-"));
+            }
+            return sb.toString();
+        }
+    }
+
+    private static class Candidate {
+        final String label;
+        final BufferedImage image;
+        final boolean rotate;
+        final boolean invert;
+        final boolean tryHarder;
+
+        Candidate(BufferedImage image, boolean rotate, boolean invert, boolean tryHarder) {
+            this.image = image;
+            this.rotate = rotate;
+            this.invert = invert;
+            this.tryHarder = tryHarder;
+            this.label = image.getWidth() + "x" + image.getHeight()
+                    + (rotate ? " rotated" : "") + (invert ? " inverted" : "") + (tryHarder ? " try-harder" : "");
+        }
+    }
+
+    /**
+     * The bounded pool all QR decoding runs on. Tasks submitted to it must decode
+     * with parallel set to false, or they would wait on their own pool.
+     */
+    static ExecutorService executor() {
+        return POOL;
+    }
+
+    /**
+     * Find the QR codes in an uploaded image, running the attempts in parallel.
+     * Blocks until a code is found or every attempt has failed.
+     */
+    public static Report decode(BufferedImage image) {
+        return decode(image, true);
+    }
+
+    /**
+     * @param parallel Run the attempts on the shared pool; if false they run one after
+     *                 another on the calling thread, for callers that already decode
+     *                 several images at once
+     */
+    public static Report decode(BufferedImage image, boolean parallel) {
+        long start = System.nanoTime();
+        List<Attempt> attempts = Collections.synchronizedList(new ArrayList<>());
+
+        List<BufferedImage> levels = buildPyramid(QRFrameDecoder.forCurrentThread().toGray(image));
+        BufferedImage original = levels.get(0);
+        List<BufferedImage> fastLevels = new ArrayList<>();
+        for (int i = levels.size() - 1; i >= 0; i--) {
+            BufferedImage level = levels.get(i);
+            if (Math.max(level.getWidth(), level.getHeight()) <= MAX_FAST_SIDE) {
+                fastLevels.add(level);
+            }
+        }
+        if (fastLevels.isEmpty()) {
+            fastLevels.add(levels.get(levels.size() - 1));
+        }
+
+        // Smallest levels first: they are the quickest and usually enough
+        List<Candidate> fast = new ArrayList<>();
+        for (BufferedImage level : fastLevels) {
+            fast.add(new Candidate(level, false, false, false));
+        }
+        for (BufferedImage level : fastLevels) {
+            fast.add(new Candidate(level, true, false, false));
+        }
+        for (BufferedImage level : fastLevels) {
+            fast.add(new Candidate(level, false, true, false));
+        }
+
+        List<String> texts = runFirstSuccess(fast, attempts, parallel);
+        if (texts.isEmpty()) {
+            BufferedImage largest = fastLevels.get(fastLevels.size() - 1);
+            List<Candidate> lastResort = new ArrayList<>();
+            lastResort.add(new Candidate(largest, false, false, true));
+            lastResort.add(new Candidate(largest, true, false, true));
+            lastResort.add(new Candidate(largest, false, true, true));
+            if (original != largest) {
+                lastResort.add(new Candidate(original, false, false, true));
+            }
+            texts = runFirstSuccess(lastResort, attempts, parallel);
+        }
+
+        List<Attempt> finished;
+        synchronized (attempts) {
+            finished = new ArrayList<>(attempts);
+        }
+        return new Report(texts, finished, (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Run the candidates and return the texts of the first that finds anything; the
+     * rest are cancelled, or never started if run in order. Empty if none does.
+     */
+    private static List<String> runFirstSuccess(List<Candidate> candidates, List<Attempt> attempts, boolean parallel) {
+        if (!parallel) {
+            for (Candidate candidate : candidates) {
+                List<String> texts = attempt(candidate, attempts);
+                if (!texts.isEmpty()) {
+                    return texts;
+                }
+            }
+            return Collections.emptyList();
+        }
+
+        CompletionService<List<String>> completion = new ExecutorCompletionService<>(POOL);
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            futures.add(completion.submit(() -> attempt(candidate, attempts)));
+        }
+
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    List<String> texts = completion.take().get();
+                    if (!texts.isEmpty()) {
+                        return texts;
+                    }
+                } catch (ExecutionException e) {
+                    System.err.println("QR decode attempt failed: " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (Future<List<String>> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private static List<String> attempt(Candidate candidate, List<Attempt> attempts) {
+        long start = System.nanoTime();
+        List<String> texts = QRFrameDecoder.forCurrentThread()
+                .decodeAllText(candidate.image, candidate.rotate, candidate.invert, candidate.tryHarder);
+        attempts.add(new Attempt(candidate.label, (System.nanoTime() - start) / 1e6, !texts.isEmpty()));
+        return texts;
+    }
+
+    /**
+     * The grey image followed by successively halved copies, down to MIN_SIDE.
+     */
+    private static List<BufferedImage> buildPyramid(BufferedImage gray) {
+        List<BufferedImage> levels = new ArrayList<>();
+        levels.add(gray);
+        BufferedImage level = gray;
+        while (Math.min(level.getWidth(), level.getHeight()) / 2 >= MIN_SIDE) {
+            level = halve(level);
+            levels.add(level);
+        }
+        return levels;
+    }
+
+    /**
+     * Average each 2x2 block, which keeps thin modules from aliasing away.
+     */
+    private static BufferedImage halve(BufferedImage gray) {
+        int width = gray.getWidth();
+        int outWidth = width / 2;
+        int outHeight = gray.getHeight() / 2;
+        BufferedImage half = new BufferedImage(outWidth, outHeight, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] in = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        byte[] out = ((DataBufferByte) half.getRaster().getDataBuffer()).getData();
+
+        int i = 0;
+        for (int y = 0; y < outHeight; y++) {
+            int top = 2 * y * width;
+            int bottom = top + width;
+            for (int x = 0; x < outWidth; x++) {
+                int left = 2 * x;
+                out[i++] = (byte) (((in[top + left] & 0xFF) + (in[top + left + 1] & 0xFF)
+                        + (in[bottom + left] & 0xFF) + (in[bottom + left + 1] & 0xFF) + 2) >> 2);
+            }
+        }
+        return half;
+    }
+}
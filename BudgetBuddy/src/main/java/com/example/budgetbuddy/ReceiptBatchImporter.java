@@ -0,0 +1,144 @@
+package com.example.budgetbuddy;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Reads many receipt QR images at once. They are decoded with QRUploadDecoder, since
+ * they are often phone photos: each image is one task on the decoder's shared pool,
+ * so images run in parallel while each image's attempts run in order. Every code
+ * found in an image yields one Result, so a photo of several receipts gives several;
+ * an image without a usable code still yields one Result saying why. Results keep
+ * the order the files were given in.
+ */
+public class ReceiptBatchImporter {
+
+    public static final String[] IMAGE_EXTENSIONS = {".png", ".jpg", ".jpeg", ".bmp", ".gif"};
+
+    public static class Result {
+        private final File file;
+        private final ReceiptQRScanner.ReceiptData receipt;
+        private final String error;
+
+        Result(File file, ReceiptQRScanner.ReceiptData receipt, String error) {
+            this.file = file;
+            this.receipt = receipt;
+            this.error = error;
+        }
+
+        /** The image the code came from, or null if it came from the webcam. */
+        public File getFile() { return file; }
+        /** The parsed receipt, or null if the file could not be imported. */
+        public ReceiptQRScanner.ReceiptData getReceipt() { return receipt; }
+        /** Why the file could not be imported, or null. */
+        public String getError() { return error; }
+    }
+
+    /**
+     * The image files directly inside a directory, sorted by name.
+     */
+    public static List<File> listImages(File directory) {
+        File[] files = directory.listFiles(file -> file.isFile() && isImage(file));
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    public static boolean isImage(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        for (String extension : IMAGE_EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One Result per code, parsed with parseReceiptQR.
+     *
+     * @param source The image the codes came from, or null
+     */
+    public static List<Result> parseCodes(File source, List<String> qrCodes) {
+        List<Result> results = new ArrayList<>();
+        for (String qrCode : qrCodes) {
+            ReceiptQRScanner.ReceiptData receipt = ReceiptQRScanner.parseReceiptQR(qrCode);
+            results.add(receipt != null
+                    ? new Result(source, receipt, null)
+                    : new Result(source, null, "QR code is not a receipt"));
+        }
+        return results;
+    }
+
+    /**
+     * Decode and parse every file. Blocks until all are done, so call it off the FX thread.
+     *
+     * @param progress Called with the number of files finished so far, from the worker threads
+     */
+    public static List<Result> importFiles(List<File> files, IntConsumer progress) {
+        if (files.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // The pool is bounded, so at most that many full images are in memory at once
+        ExecutorService pool = QRUploadDecoder.executor();
+        AtomicInteger done = new AtomicInteger();
+        List<Future<List<Result>>> futures = new ArrayList<>();
+        try {
+            for (File file : files) {
+                futures.add(pool.submit(() -> {
+                    List<Result> fileResults = importFile(file);
+                    progress.accept(done.incrementAndGet());
+                    return fileResults;
+                }));
+            }
+
+            List<Result> results = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    results.addAll(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new Result(files.get(i), null, "Failed to read image: " + e.getCause().getMessage()));
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        } finally {
+            // Only does anything if interrupted; a file already being decoded finishes
+            for (Future<List<Result>> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static List<Result> importFile(File file) {
+        try {
+            BufferedImage image = ImageIO.read(file);
+            if (image == null) {
+                return Collections.singletonList(new Result(file, null, "Not a readable image"));
+            }
+            List<String> qrCodes = QRUploadDecoder.decode(image, false).getTexts();
+            if (qrCodes.isEmpty()) {
+                return Collections.singletonList(new Result(file, null, "No QR code found"));
+            }
+            return parseCodes(file, qrCodes);
+        } catch (Exception e) {
+            return Collections.singletonList(new Result(file, null, "Failed to read image: " + e.getMessage()));
+        }
+    }
+}
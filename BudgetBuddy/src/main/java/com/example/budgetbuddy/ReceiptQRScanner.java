@@ -1,15 +1,11 @@
 package com.example.budgetbuddy;
 
-import com.google.zxing.*;
-import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
-import com.google.zxing.common.HybridBinarizer;
-
-import java.awt.image.BufferedImage;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
 /**
- * Handles scanning and parsing QR codes from receipts.
+ * Parses the text of a receipt QR code into ReceiptData. Decoding the image is done
+ * by QRUploadDecoder and QRFrameDecoder.
  * Supported format (pipe-delimited):
  * MERCHANT|DATE|AMOUNT|CATEGORY|ITEMS
  * Example: "Jollibee|2025-11-02|250.50|Food|Chickenjoy, Fries"
@@ -84,16 +80,6 @@ public class ReceiptQRScanner {
         return null; // Parsing failed
     }
 
-    /**
-     * Scan QR code from BufferedImage
-     */
-    public static String scanQRFromImage(BufferedImage image) throws NotFoundException {
-        LuminanceSource source = new BufferedImageLuminanceSource(image);
-        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
-        Result result = new MultiFormatReader().decode(bitmap);
-        return result.getText();
-    }
-
     /**
      * Get available expense categories
      */
@@ -0,0 +1,175 @@
+package com.example.budgetbuddy;
+
+import java.io.*;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Per-user storage layout. Every user gets a shard directory holding their own
+ * transactions, journal, budgets and savings target, and a manifest lists the
+ * users that have a shard:
+ *
+ * data/manifest.csv
+ * data/users/<encoded username>/transactions.csv
+ * data/users/<encoded username>/transactions.bin      (binary copy of transactions.csv)
+ * data/users/<encoded username>/transactions.journal
+ * data/users/<encoded username>/budgets.csv
+ * data/users/<encoded username>/target_savings.csv
+ *
+ * Shard files keep the same columns as the legacy single-file CSVs.
+ */
+public class ShardedDataStore {
+
+    public static final String TRANSACTIONS_FILE = "transactions.csv";
+    public static final String TRANSACTIONS_SNAPSHOT_FILE = "transactions.bin";
+    public static final String JOURNAL_FILE = "transactions.journal";
+    public static final String BUDGETS_FILE = "budgets.csv";
+    public static final String TARGET_SAVINGS_FILE = "target_savings.csv";
+
+    private static final String MANIFEST_FILE = "manifest.csv";
+    private static final String MANIFEST_HEADER = "username,shard";
+    private static final String USERS_DIR = "users";
+    private static final String DELIMITER = ",";
+
+    private final Path root;
+    private final Path manifestPath;
+    private final Map<String, String> shards = new LinkedHashMap<>();
+    private final Map<String, TransactionJournal> journals = new HashMap<>();
+
+    public ShardedDataStore(String rootDirectory) {
+        this.root = Paths.get(rootDirectory);
+        this.manifestPath = root.resolve(MANIFEST_FILE);
+    }
+
+    public boolean hasManifest() {
+        return Files.exists(manifestPath);
+    }
+
+    /**
+     * Read the manifest and return the usernames that have a shard.
+     */
+    public synchronized Set<String> loadManifest() {
+        shards.clear();
+        if (!hasManifest()) {
+            return Collections.emptySet();
+        }
+
+        try {
+            CsvCursor row = CsvCursor.open(manifestPath);
+            row.nextRow(); // Skip header
+
+            while (row.nextRow()) {
+                if (row.fieldCount() >= 2) {
+                    shards.put(URLDecoder.decode(row.getString(0), StandardCharsets.UTF_8), row.getString(1));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading manifest: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return new LinkedHashSet<>(shards.keySet());
+    }
+
+    /**
+     * Add a user to the manifest. Returns true if the user is new and the manifest needs writing.
+     */
+    public synchronized boolean register(String username) {
+        if (shards.containsKey(username)) {
+            return false;
+        }
+        shards.put(username, shardName(username));
+        return true;
+    }
+
+    public synchronized boolean isRegistered(String username) {
+        return shards.containsKey(username);
+    }
+
+    public boolean writeManifest() {
+        List<String> rows = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<String, String> entry : shards.entrySet()) {
+                rows.add(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8) + DELIMITER + entry.getValue());
+            }
+        }
+        return writeCsv(manifestPath, MANIFEST_HEADER, rows);
+    }
+
+    public synchronized Path shardFile(String username, String fileName) {
+        String shard = shards.getOrDefault(username, shardName(username));
+        return root.resolve(USERS_DIR).resolve(shard).resolve(fileName);
+    }
+
+    public synchronized TransactionJournal journal(String username) {
+        return journals.computeIfAbsent(username,
+                u -> new TransactionJournal(shardFile(u, JOURNAL_FILE).toString()));
+    }
+
+    /**
+     * Remove every file in a user's shard. The user stays in the manifest so the
+     * shard is simply recreated on their next change.
+     */
+    public void deleteShard(String username) {
+        journal(username).truncate();
+
+        Path shardDir = shardFile(username, JOURNAL_FILE).getParent();
+        if (!Files.exists(shardDir)) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.list(shardDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(shardDir);
+        } catch (IOException e) {
+            System.err.println("Error deleting shard for " + username + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Write a CSV file via a temp file and atomic rename so readers never see a partial file.
+     */
+    public static boolean writeCsv(Path target, String header, List<String> rows) {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(temp, StandardCharsets.UTF_8))) {
+                writer.println(header);
+                for (String row : rows) {
+                    writer.println(row);
+                }
+                writer.flush();
+                if (writer.checkError()) {
+                    throw new IOException("write failed for " + temp);
+                }
+            }
+
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving " + target + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private static String shardName(String username) {
+        // Usernames may contain characters that are not valid in file names
+        return URLEncoder.encode(username, StandardCharsets.UTF_8)
+                .replace("*", "%2A")
+                .replace(".", "%2E");
+    }
+}
@@ -2,6 +2,10 @@ package com.example.budgetbuddy;
 
 import java.util.UUID;
 
+/**
+ * A single income or expense entry. BudgetManager keeps rows column-wise in a
+ * TransactionStore and creates these on demand as views of a stored row.
+ */
 public class Transaction {
     private final String id;
     private final String date;
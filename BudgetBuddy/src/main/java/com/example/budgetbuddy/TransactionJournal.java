@@ -0,0 +1,137 @@
+package com.example.budgetbuddy;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only write-ahead journal for transaction changes.
+ * Each line is an operation code followed by a transaction row:
+ * A,username,date,category,description,amount,type,transaction_id  (add)
+ * D,username,transaction_id                                         (delete)
+ * The journal is replayed on top of the CSV snapshot at startup and
+ * truncated once its records have been folded into a new snapshot.
+ * Appended records are buffered in memory until flushPending() writes them.
+ */
+public class TransactionJournal {
+
+    public static final String OP_ADD = "A";
+    public static final String OP_DELETE = "D";
+    private static final String DELIMITER = ",";
+
+    private final Path path;
+    private final List<String> pending = new ArrayList<>();
+    private int recordCount;
+
+    /**
+     * Receives each record with the cursor on its line; field 0 is the op and the row starts at field 1.
+     */
+    public interface ReplayHandler {
+        void onRecord(String op, CsvCursor record);
+    }
+
+    public TransactionJournal(String fileName) {
+        this.path = Paths.get(fileName);
+    }
+
+    /**
+     * Queue a single record. Cost is independent of the journal or snapshot size.
+     */
+    public synchronized void append(String op, String row) {
+        pending.add(op + DELIMITER + row);
+        recordCount++;
+    }
+
+    /**
+     * Append all queued records to the journal file in one write.
+     */
+    public void flushPending() {
+        List<String> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+        } catch (IOException e) {
+            System.err.println("Error creating journal directory: " + e.getMessage());
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(path.toFile(), true))) {
+            for (String record : batch) {
+                writer.println(record);
+            }
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("write failed for " + path);
+            }
+        } catch (IOException e) {
+            System.err.println("Error appending to journal: " + e.getMessage());
+            e.printStackTrace();
+            synchronized (this) {
+                pending.addAll(0, batch);
+            }
+        }
+    }
+
+    /**
+     * Drop queued records that a snapshot about to be written already contains.
+     */
+    public synchronized void discardPending() {
+        pending.clear();
+    }
+
+    /**
+     * Replay every record in file order. Returns the number of records read.
+     */
+    public synchronized int replay(ReplayHandler handler) {
+        recordCount = 0;
+        if (!Files.exists(path)) {
+            return 0;
+        }
+
+        try {
+            CsvCursor record = CsvCursor.open(path);
+            while (record.nextRow()) {
+                if (record.fieldCount() < 2) continue;
+
+                handler.onRecord(record.getString(0), record);
+                recordCount++;
+            }
+        } catch (IOException e) {
+            System.err.println("Error replaying journal: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return recordCount;
+    }
+
+    /**
+     * Drop all records. Only call after they have been written to a snapshot.
+     */
+    public synchronized void truncate() {
+        try {
+            Files.deleteIfExists(path);
+            recordCount = pending.size();
+        } catch (IOException e) {
+            System.err.println("Error truncating journal: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+}
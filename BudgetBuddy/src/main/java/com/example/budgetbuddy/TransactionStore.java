@@ -0,0 +1,902 @@
+package com.example.budgetbuddy;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Column-oriented storage for one user's transactions.
+ * Each field lives in its own growable primitive array:
+ * amounts as long cents, dates as int epoch days, category and type as
+ * dictionary codes, and UUID ids as two longs. Aggregates scan these arrays
+ * directly; Transaction objects are only created when a row is handed out.
+ * Each type also keeps a date-ordered index of its rows, so listings never sort,
+ * and an open-addressing hash maps ids to rows. Removed rows are tombstoned and
+ * the arrays are compacted once tombstones make up half of them.
+ * Totals, per-category and per-month sums are kept up to date on every add and
+ * remove, so the aggregate getters never scan the rows. Sums over a range of
+ * days come from Fenwick trees keyed by epoch day.
+ */
+public class TransactionStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIN_COMPACTION_ROWS = 64;
+    // Id index slot values: 0 is empty, TOMBSTONE is a deleted entry, otherwise row + 1
+    private static final int TOMBSTONE = -1;
+
+    private final StringDictionary categories = new StringDictionary();
+    private final StringDictionary types = new StringDictionary();
+
+    private long[] amountCents = new long[INITIAL_CAPACITY];
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private int[] categoryCodes = new int[INITIAL_CAPACITY];
+    private int[] typeCodes = new int[INITIAL_CAPACITY];
+    private long[] idHigh = new long[INITIAL_CAPACITY];
+    private long[] idLow = new long[INITIAL_CAPACITY];
+    private String[] descriptions = new String[INITIAL_CAPACITY];
+    // Only allocated if an id is ever loaded that is not a UUID
+    private String[] rawIds;
+    private boolean[] removed = new boolean[INITIAL_CAPACITY];
+    // Rows in the arrays, including removed ones
+    private int rowCount;
+    private int removedCount;
+    // Date-ordered row index per type code; may still hold removed rows
+    private final List<DayIndex> dayIndexes = new ArrayList<>();
+    // Running sums per type code
+    private final List<Aggregates> aggregates = new ArrayList<>();
+
+    private int[] idSlots = new int[INITIAL_CAPACITY * 2];
+    private int idSlotsUsed;
+
+    public int size() {
+        return rowCount - removedCount;
+    }
+
+    /**
+     * Append a transaction and return its row number.
+     */
+    public int add(Transaction transaction) {
+        return add(parseEpochDay(transaction.getDate()), transaction.getCategory(), transaction.getDescription(),
+                toCents(transaction.getAmount()), transaction.getType(), transaction.getId());
+    }
+
+    /**
+     * Append a row from already-parsed columns, as the loaders do.
+     */
+    public int add(int epochDay, String category, String description, long cents, String type, String id) {
+        ensureCapacity(rowCount + 1);
+        int row = rowCount;
+
+        amountCents[row] = cents;
+        epochDays[row] = epochDay;
+        categoryCodes[row] = categories.encode(category);
+        typeCodes[row] = types.encode(type);
+        descriptions[row] = description;
+        setId(row, id);
+        return commitRow(row);
+    }
+
+    /**
+     * Append every row of another store, in its insertion order. Used to merge the
+     * partial stores built by parallel loading; columns are copied without re-parsing.
+     */
+    public void addAll(TransactionStore other) {
+        ensureCapacity(rowCount + other.size());
+        int[] categoryMap = codeMap(other.categories, categories);
+        int[] typeMap = codeMap(other.types, types);
+
+        for (int source = 0; source < other.rowCount; source++) {
+            if (other.removed[source]) {
+                continue;
+            }
+            int row = rowCount;
+            amountCents[row] = other.amountCents[source];
+            epochDays[row] = other.epochDays[source];
+            categoryCodes[row] = categoryMap[other.categoryCodes[source]];
+            typeCodes[row] = typeMap[other.typeCodes[source]];
+            descriptions[row] = other.descriptions[source];
+            if (other.rawIds != null && other.rawIds[source] != null) {
+                setId(row, other.rawIds[source]);
+            } else {
+                idHigh[row] = other.idHigh[source];
+                idLow[row] = other.idLow[source];
+                if (rawIds != null) {
+                    rawIds[row] = null;
+                }
+            }
+            commitRow(row);
+        }
+    }
+
+    /**
+     * Write the live rows as fixed-width columns: count, epoch days, cents, category,
+     * type and description codes, UUID halves, and raw-id codes (-1 for UUID ids).
+     */
+    public void writeSnapshot(BinarySnapshot.Encoder out) throws IOException {
+        int count = size();
+        int[] days = new int[count];
+        long[] cents = new long[count];
+        int[] categoryColumn = new int[count];
+        int[] typeColumn = new int[count];
+        int[] descriptionColumn = new int[count];
+        long[] highColumn = new long[count];
+        long[] lowColumn = new long[count];
+        int[] rawIdColumn = new int[count];
+
+        int[] categoryCodesOut = new int[categories.size()];
+        for (int code = 0; code < categoryCodesOut.length; code++) {
+            categoryCodesOut[code] = out.code(categories.decode(code));
+        }
+        int[] typeCodesOut = new int[types.size()];
+        for (int code = 0; code < typeCodesOut.length; code++) {
+            typeCodesOut[code] = out.code(types.decode(code));
+        }
+
+        int i = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (removed[row]) {
+                continue;
+            }
+            days[i] = epochDays[row];
+            cents[i] = amountCents[row];
+            categoryColumn[i] = categoryCodesOut[categoryCodes[row]];
+            typeColumn[i] = typeCodesOut[typeCodes[row]];
+            descriptionColumn[i] = out.code(descriptions[row]);
+            highColumn[i] = idHigh[row];
+            lowColumn[i] = idLow[row];
+            rawIdColumn[i] = rawIds != null ? out.code(rawIds[row]) : -1;
+            i++;
+        }
+
+        out.writeInt(count);
+        out.writeInts(days, count);
+        out.writeLongs(cents, count);
+        out.writeInts(categoryColumn, count);
+        out.writeInts(typeColumn, count);
+        out.writeInts(descriptionColumn, count);
+        out.writeLongs(highColumn, count);
+        out.writeLongs(lowColumn, count);
+        out.writeInts(rawIdColumn, count);
+    }
+
+    /**
+     * Rebuild a store from columns written by writeSnapshot.
+     */
+    public static TransactionStore readSnapshot(BinarySnapshot.Decoder in) {
+        int count = in.readInt();
+        int[] days = in.readInts(count);
+        long[] cents = in.readLongs(count);
+        int[] categoryColumn = in.readInts(count);
+        int[] typeColumn = in.readInts(count);
+        int[] descriptionColumn = in.readInts(count);
+        long[] highColumn = in.readLongs(count);
+        long[] lowColumn = in.readLongs(count);
+        int[] rawIdColumn = in.readInts(count);
+
+        TransactionStore store = new TransactionStore();
+        store.ensureCapacity(count);
+        for (int row = 0; row < count; row++) {
+            store.amountCents[row] = cents[row];
+            store.epochDays[row] = days[row];
+            store.categoryCodes[row] = store.categories.encode(in.string(categoryColumn[row]));
+            store.typeCodes[row] = store.types.encode(in.string(typeColumn[row]));
+            store.descriptions[row] = in.string(descriptionColumn[row]);
+            if (rawIdColumn[row] >= 0) {
+                store.setId(row, in.string(rawIdColumn[row]));
+            } else {
+                store.idHigh[row] = highColumn[row];
+                store.idLow[row] = lowColumn[row];
+            }
+            store.commitRow(row);
+        }
+        return store;
+    }
+
+    private static int[] codeMap(StringDictionary from, StringDictionary to) {
+        int[] map = new int[from.size()];
+        for (int code = 0; code < map.length; code++) {
+            map[code] = to.encode(from.decode(code));
+        }
+        return map;
+    }
+
+    /**
+     * Index a row whose columns have just been written at rowCount.
+     */
+    private int commitRow(int row) {
+        while (dayIndexes.size() <= typeCodes[row]) {
+            dayIndexes.add(new DayIndex());
+            aggregates.add(new Aggregates());
+        }
+        dayIndexes.get(typeCodes[row]).insert(row, epochDays);
+        aggregates.get(typeCodes[row]).apply(categoryCodes[row], epochDays[row], amountCents[row], 1);
+
+        indexId(row);
+        rowCount++;
+        return row;
+    }
+
+    /**
+     * Remove a row in constant time by tombstoning it. Row numbers of other rows
+     * stay valid until the next remove, which may compact the arrays.
+     */
+    public void remove(int row) {
+        if (row < 0 || row >= rowCount || removed[row]) {
+            return;
+        }
+        int slot = findSlot(row);
+        if (slot >= 0) {
+            idSlots[slot] = TOMBSTONE;
+        }
+        aggregates.get(typeCodes[row]).apply(categoryCodes[row], epochDays[row], amountCents[row], -1);
+        removed[row] = true;
+        removedCount++;
+        descriptions[row] = null;
+
+        if (removedCount >= MIN_COMPACTION_ROWS && removedCount * 2 >= rowCount) {
+            compact();
+        }
+    }
+
+    /**
+     * Find the row holding this id, or -1. Constant time on average.
+     */
+    public int indexOf(String transactionId) {
+        if (transactionId == null) {
+            return -1;
+        }
+        long[] parsed = parseUuid(transactionId);
+        int mask = idSlots.length - 1;
+        int slot = parsed != null ? hashUuid(parsed[0], parsed[1]) & mask : mix(transactionId.hashCode()) & mask;
+        while (idSlots[slot] != 0) {
+            int row = idSlots[slot] - 1;
+            if (idSlots[slot] != TOMBSTONE) {
+                boolean raw = rawIds != null && rawIds[row] != null;
+                if (parsed != null ? !raw && idHigh[row] == parsed[0] && idLow[row] == parsed[1]
+                        : raw && rawIds[row].equals(transactionId)) {
+                    return row;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * All rows in the order they were added.
+     */
+    public List<Transaction> list() {
+        List<Transaction> result = new ArrayList<>(size());
+        for (int row = 0; row < rowCount; row++) {
+            if (!removed[row]) {
+                result.add(get(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create a Transaction view of one row.
+     */
+    public Transaction get(int row) {
+        return new Transaction(
+                getDate(row),
+                categories.decode(categoryCodes[row]),
+                descriptions[row],
+                getAmount(row),
+                types.decode(typeCodes[row]),
+                getId(row));
+    }
+
+    public String getId(int row) {
+        if (rawIds != null && rawIds[row] != null) {
+            return rawIds[row];
+        }
+        return new UUID(idHigh[row], idLow[row]).toString();
+    }
+
+    public String getDate(int row) {
+        return LocalDate.ofEpochDay(epochDays[row]).toString();
+    }
+
+    public int getEpochDay(int row) {
+        return epochDays[row];
+    }
+
+    public double getAmount(int row) {
+        return amountCents[row] / 100.0;
+    }
+
+    public String getCategory(int row) {
+        return categories.decode(categoryCodes[row]);
+    }
+
+    public String getType(int row) {
+        return types.decode(typeCodes[row]);
+    }
+
+    /**
+     * Up to limit rows of the given type (null for all), newest first. Rows on the
+     * same date come most recently added first. Costs O(limit), no sorting.
+     */
+    public List<Transaction> listByDateDescending(String type, int limit) {
+        List<Transaction> result = new ArrayList<>();
+        if (type != null) {
+            int typeCode = types.lookup(type);
+            if (typeCode < 0) {
+                return result;
+            }
+            DayIndex index = dayIndexes.get(typeCode);
+            for (int i = index.size - 1; i >= 0 && result.size() < limit; i--) {
+                if (!removed[index.rows[i]]) {
+                    result.add(get(index.rows[i]));
+                }
+            }
+            return result;
+        }
+
+        // Merge the per-type indexes from their newest ends
+        int[] cursors = new int[dayIndexes.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = dayIndexes.get(i).size - 1;
+        }
+        while (result.size() < limit) {
+            int best = -1;
+            for (int i = 0; i < cursors.length; i++) {
+                if (cursors[i] >= 0 && (best < 0
+                        || compareRows(dayIndexes.get(i).rows[cursors[i]], dayIndexes.get(best).rows[cursors[best]]) > 0)) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            int row = dayIndexes.get(best).rows[cursors[best]--];
+            if (!removed[row]) {
+                result.add(get(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * All rows, oldest first.
+     */
+    public List<Transaction> listByDateAscending() {
+        List<Transaction> result = new ArrayList<>(size());
+        int[] cursors = new int[dayIndexes.size()];
+        while (true) {
+            int best = -1;
+            for (int i = 0; i < cursors.length; i++) {
+                if (cursors[i] < dayIndexes.get(i).size && (best < 0
+                        || compareRows(dayIndexes.get(i).rows[cursors[i]], dayIndexes.get(best).rows[cursors[best]]) < 0)) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            int row = dayIndexes.get(best).rows[cursors[best]++];
+            if (!removed[row]) {
+                result.add(get(row));
+            }
+        }
+        return result;
+    }
+
+    private int compareRows(int a, int b) {
+        int byDay = Integer.compare(epochDays[a], epochDays[b]);
+        return byDay != 0 ? byDay : Integer.compare(a, b);
+    }
+
+    /**
+     * Sum of amounts in cents for a type and optional category (null matches all).
+     */
+    public long sumCents(String type, String category) {
+        Aggregates sums = aggregatesFor(type);
+        if (sums == null) {
+            return 0;
+        }
+        if (category == null) {
+            return sums.total;
+        }
+        int categoryCode = categories.lookup(category);
+        return categoryCode >= 0 && categoryCode < sums.byCategory.length ? sums.byCategory[categoryCode] : 0;
+    }
+
+    /**
+     * Per-category sums in cents for one type. Categories with no rows left are omitted.
+     */
+    public Map<String, Long> sumCentsByCategory(String type) {
+        Map<String, Long> result = new HashMap<>();
+        Aggregates sums = aggregatesFor(type);
+        if (sums == null) {
+            return result;
+        }
+
+        for (int code = 0; code < sums.byCategory.length; code++) {
+            if (sums.countByCategory[code] > 0) {
+                result.put(categories.decode(code), sums.byCategory[code]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Per-month sums in cents for one type, keyed by year * 12 + (month - 1), in month order.
+     */
+    public SortedMap<Integer, Long> sumCentsByMonth(String type) {
+        SortedMap<Integer, Long> result = new TreeMap<>();
+        Aggregates sums = aggregatesFor(type);
+        if (sums == null) {
+            return result;
+        }
+
+        for (Map.Entry<Integer, long[]> entry : sums.byMonth.entrySet()) {
+            result.put(entry.getKey(), entry.getValue()[0]);
+        }
+        return result;
+    }
+
+    /**
+     * Sum in cents for a type and optional category (null matches all) over
+     * fromDay..toDay inclusive, in O(log days). Read-only, so it is safe to run
+     * under a shared or optimistic read.
+     */
+    public long sumCentsByDayRange(String type, String category, int fromDay, int toDay) {
+        Aggregates sums = aggregatesFor(type);
+        if (sums == null) {
+            return 0;
+        }
+        if (category == null) {
+            return sums.byDay.sum(fromDay, toDay);
+        }
+        int categoryCode = categories.lookup(category);
+        DayFenwick[] byCategoryDay = sums.byCategoryDay;
+        if (categoryCode < 0 || categoryCode >= byCategoryDay.length || byCategoryDay[categoryCode] == null) {
+            return 0;
+        }
+        return byCategoryDay[categoryCode].sum(fromDay, toDay);
+    }
+
+    private Aggregates aggregatesFor(String type) {
+        int typeCode = types.lookup(type);
+        return typeCode < 0 ? null : aggregates.get(typeCode);
+    }
+
+    private void setId(int row, String id) {
+        long[] parsed = parseUuid(id);
+        if (parsed != null) {
+            idHigh[row] = parsed[0];
+            idLow[row] = parsed[1];
+            if (rawIds != null) {
+                rawIds[row] = null;
+            }
+        } else {
+            if (rawIds == null) {
+                rawIds = new String[amountCents.length];
+            }
+            rawIds[row] = id;
+        }
+    }
+
+    /**
+     * Drop tombstoned rows, keeping the order of the rest, and rebuild the indexes.
+     */
+    private void compact() {
+        int[] newRows = new int[rowCount];
+        int live = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (!removed[row]) {
+                newRows[row] = live++;
+            }
+        }
+        // Relative order is unchanged, so each date index only needs its rows renumbered
+        for (DayIndex index : dayIndexes) {
+            index.retain(removed, newRows);
+        }
+
+        live = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (removed[row]) {
+                continue;
+            }
+            amountCents[live] = amountCents[row];
+            epochDays[live] = epochDays[row];
+            categoryCodes[live] = categoryCodes[row];
+            typeCodes[live] = typeCodes[row];
+            idHigh[live] = idHigh[row];
+            idLow[live] = idLow[row];
+            descriptions[live] = descriptions[row];
+            if (rawIds != null) {
+                rawIds[live] = rawIds[row];
+            }
+            removed[live] = false;
+            live++;
+        }
+        for (int row = live; row < rowCount; row++) {
+            descriptions[row] = null;
+            removed[row] = false;
+            if (rawIds != null) {
+                rawIds[row] = null;
+            }
+        }
+
+        rowCount = live;
+        removedCount = 0;
+        rehashIds(idSlots.length);
+    }
+
+    private void indexId(int row) {
+        if ((idSlotsUsed + 1) * 2 > idSlots.length) {
+            // Grow only if live rows need it; otherwise this just clears tombstones
+            int capacity = idSlots.length;
+            while (size() * 2 > capacity / 2) {
+                capacity *= 2;
+            }
+            rehashIds(capacity);
+        }
+        insertId(row);
+    }
+
+    private void rehashIds(int capacity) {
+        idSlots = new int[capacity];
+        idSlotsUsed = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (!removed[row]) {
+                insertId(row);
+            }
+        }
+    }
+
+    private void insertId(int row) {
+        int mask = idSlots.length - 1;
+        int slot = hashRow(row) & mask;
+        while (idSlots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        idSlots[slot] = row + 1;
+        idSlotsUsed++;
+    }
+
+    private int findSlot(int row) {
+        int mask = idSlots.length - 1;
+        int slot = hashRow(row) & mask;
+        while (idSlots[slot] != 0) {
+            if (idSlots[slot] == row + 1) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int hashRow(int row) {
+        if (rawIds != null && rawIds[row] != null) {
+            return mix(rawIds[row].hashCode());
+        }
+        return hashUuid(idHigh[row], idLow[row]);
+    }
+
+    private static int hashUuid(long high, long low) {
+        long bits = high ^ low;
+        return mix((int) (bits ^ (bits >>> 32)));
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= amountCents.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, amountCents.length * 2);
+        amountCents = Arrays.copyOf(amountCents, newCapacity);
+        epochDays = Arrays.copyOf(epochDays, newCapacity);
+        categoryCodes = Arrays.copyOf(categoryCodes, newCapacity);
+        typeCodes = Arrays.copyOf(typeCodes, newCapacity);
+        idHigh = Arrays.copyOf(idHigh, newCapacity);
+        idLow = Arrays.copyOf(idLow, newCapacity);
+        descriptions = Arrays.copyOf(descriptions, newCapacity);
+        removed = Arrays.copyOf(removed, newCapacity);
+        if (rawIds != null) {
+            rawIds = Arrays.copyOf(rawIds, newCapacity);
+        }
+    }
+
+    /**
+     * Row numbers of one type ordered by (epoch day, row). New rows usually carry
+     * the latest date, so inserts are normally an append at the tail.
+     */
+    static final class DayIndex {
+        int[] rows = new int[INITIAL_CAPACITY];
+        int size;
+
+        void insert(int row, int[] epochDays) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            // Insert after every row with the same or an earlier day; the new row
+            // number is the largest so (day, row) order is preserved
+            int day = epochDays[row];
+            int position = size;
+            if (position > 0 && epochDays[rows[position - 1]] > day) {
+                position = upperBound(day, epochDays);
+                System.arraycopy(rows, position, rows, position + 1, size - position);
+            }
+            rows[position] = row;
+            size++;
+        }
+
+        /**
+         * Drop removed rows and renumber the rest after a compaction.
+         */
+        void retain(boolean[] removed, int[] newRows) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!removed[rows[i]]) {
+                    rows[kept++] = newRows[rows[i]];
+                }
+            }
+            size = kept;
+        }
+
+        private int upperBound(int day, int[] epochDays) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (epochDays[rows[mid]] <= day) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Running sums in cents for one type. Row counts are kept alongside the sums so a
+     * category or month disappears once its last row is removed.
+     */
+    static final class Aggregates {
+        long total;
+        long[] byCategory = new long[0];
+        int[] countByCategory = new int[0];
+        // Month key -> {cents, rows}
+        final TreeMap<Integer, long[]> byMonth = new TreeMap<>();
+        final DayFenwick byDay = new DayFenwick();
+        // Kept up to date by every write, so queries never have to build one
+        DayFenwick[] byCategoryDay = new DayFenwick[0];
+
+        void apply(int categoryCode, int epochDay, long cents, int sign) {
+            total += sign * cents;
+
+            if (categoryCode >= byCategory.length) {
+                byCategory = Arrays.copyOf(byCategory, categoryCode + 1);
+                countByCategory = Arrays.copyOf(countByCategory, categoryCode + 1);
+                DayFenwick[] grown = Arrays.copyOf(byCategoryDay, categoryCode + 1);
+                for (int i = byCategoryDay.length; i < grown.length; i++) {
+                    grown[i] = new DayFenwick();
+                }
+                // Publish the array only once every slot is filled in
+                byCategoryDay = grown;
+            }
+            byCategory[categoryCode] += sign * cents;
+            countByCategory[categoryCode] += sign;
+
+            byDay.add(epochDay, sign * cents);
+            byCategoryDay[categoryCode].add(epochDay, sign * cents);
+
+            int month = yearMonthOf(epochDay);
+            long[] monthSums = byMonth.computeIfAbsent(month, m -> new long[2]);
+            monthSums[0] += sign * cents;
+            monthSums[1] += sign;
+            if (monthSums[1] == 0) {
+                byMonth.remove(month);
+            }
+        }
+    }
+
+    /**
+     * Fenwick tree of cents per epoch day. The covered window starts around the first
+     * day added and is widened at whichever end a new day falls beyond, to that day
+     * plus some room. The room grows with the window but is capped, so the window stays
+     * close to the span of days actually added and one outlying day costs only its
+     * distance, not a doubling.
+     */
+    static final class DayFenwick {
+        private static final int INITIAL_DAYS = 64;
+        private static final int MAX_SLACK_DAYS = 366;
+
+        private int baseDay;
+        // 1-based; tree[i] covers days ending at baseDay + i - 1
+        private long[] tree;
+
+        void add(int day, long cents) {
+            if (tree == null) {
+                baseDay = day - INITIAL_DAYS / 2;
+                tree = new long[INITIAL_DAYS + 1];
+            } else if (day < baseDay || day >= baseDay + tree.length - 1) {
+                grow(day);
+            }
+            for (int i = day - baseDay + 1; i < tree.length; i += i & -i) {
+                tree[i] += cents;
+            }
+        }
+
+        long sum(int fromDay, int toDay) {
+            if (fromDay > toDay) {
+                return 0;
+            }
+            return prefix(toDay) - prefix(fromDay - 1);
+        }
+
+        /**
+         * Sum of every day up to and including this one.
+         */
+        private long prefix(int day) {
+            if (tree == null || day < baseDay) {
+                return 0;
+            }
+            long total = 0;
+            for (int i = Math.min(day - baseDay + 1, tree.length - 1); i > 0; i -= i & -i) {
+                total += tree[i];
+            }
+            return total;
+        }
+
+        private void grow(int day) {
+            int days = tree.length - 1;
+            // Undo the linear build to recover per-day values
+            for (int i = days; i > 0; i--) {
+                int parent = i + (i & -i);
+                if (parent <= days) {
+                    tree[parent] -= tree[i];
+                }
+            }
+
+            int end = baseDay + days;
+            int slack = Math.min(Math.max(days / 2, INITIAL_DAYS), MAX_SLACK_DAYS);
+            int newBase = day < baseDay ? day - slack : baseDay;
+            int newDays = (day >= end ? day + 1 + slack : end) - newBase;
+
+            long[] grown = new long[newDays + 1];
+            System.arraycopy(tree, 1, grown, baseDay - newBase + 1, days);
+            for (int i = 1; i <= newDays; i++) {
+                int parent = i + (i & -i);
+                if (parent <= newDays) {
+                    grown[parent] += grown[i];
+                }
+            }
+            tree = grown;
+            baseDay = newBase;
+        }
+    }
+
+    static long toCents(double amount) {
+        return Math.round(amount * 100.0);
+    }
+
+    private static long[] parseUuid(String id) {
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            // Only accept the canonical lower-case form so getId() round-trips exactly
+            if (!uuid.toString().equals(id)) {
+                return null;
+            }
+            return new long[]{uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()};
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parse yyyy-MM-dd into an epoch day without creating a LocalDate.
+     */
+    static int parseEpochDay(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            throw new NumberFormatException("Invalid date: " + date);
+        }
+        return epochDayOf(parseDigits(date, 0, 4), parseDigits(date, 5, 7), parseDigits(date, 8, 10));
+    }
+
+    /**
+     * Epoch day of a calendar date. Like LocalDate.of, a day the month does not have
+     * (2025-02-29, 2025-04-31) is a NumberFormatException rather than rolled over.
+     */
+    static int epochDayOf(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            throw new NumberFormatException(String.format("Invalid date: %04d-%02d-%02d", year, month, day));
+        }
+        return (int) daysFromCivil(year, month, day);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static int parseDigits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Invalid date: " + text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // Proleptic Gregorian conversions (H. Hinnant's civil calendar algorithms)
+    static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = Math.floorDiv(year, 400);
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Month bucket for an epoch day: year * 12 + (month - 1).
+     */
+    static int yearMonthOf(int epochDay) {
+        long z = epochDay + 719468L;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 12 + month - 1);
+    }
+
+    /**
+     * Maps a small set of repeated strings (categories, types) to dense int codes.
+     */
+    static class StringDictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        int lookup(String value) {
+            return codes.getOrDefault(value, -1);
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.budgetbuddy;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.security.MessageDigest;
@@ -18,24 +19,35 @@ public class UserManager {
     private static final String SAVED_CREDS_HEADER = "identifier,pin_hash,last_login";
     private static final String REWARD_POINTS_CSV = "reward_points.csv";
     private static final String REWARD_POINTS_HEADER = "username,points,last_updated";
+    private static final String USER_STATE_SNAPSHOT = "user_state.bin";
+    private static final int USER_STATE_SNAPSHOT_KIND = 2;
     private Map<String, Integer> userRewardPoints = new HashMap<>();
-    private static final String DELIMITER = ",";
     private Map<String, User> users;
     private Map<String, User> usersByEmail;
+    // Keyed by qrKey(qrCode), so a lookup never compares the scanned text directly
+    private Map<String, User> usersByQrCode;
     private Map<String, UserAccount> userAccounts;
     private Map<String, SavedCredential> savedCredentials;
+    // Updates that matched what was already stored and so skipped the rewrite
+    private long avoidedWrites;
+    // A CSV has been loaded or written since user_state.bin was last written
+    private boolean snapshotStale;
 
     public UserManager() {
         this.users = new HashMap<>();
         this.usersByEmail = new HashMap<>();
+        this.usersByQrCode = new HashMap<>();
         this.userAccounts = new HashMap<>();
         this.savedCredentials = new HashMap<>();
         this.userRewardPoints = new HashMap<>(); // Initialize
 
-        loadUsers();
-        loadUserAccounts();
-        loadSavedCredentials();
-        loadRewardPoints(); // Add this
+        if (!loadSnapshot()) {
+            loadUsers();
+            loadUserAccounts();
+            loadSavedCredentials();
+            loadRewardPoints();
+            snapshotStale = true;
+        }
 
         if (users.isEmpty()) {
             registerUser("testuser", "1234", "test@example.com");
@@ -64,6 +76,7 @@ public class UserManager {
 
         User user = new User(username, pinHash, qrCode, email, createdDate, "");
         users.put(username, user);
+        usersByQrCode.put(qrKey(qrCode), user);
 
         if (email != null && !email.isEmpty()) {
             usersByEmail.put(email.toLowerCase(), user);
@@ -105,11 +118,19 @@ public class UserManager {
         return user != null ? user.username : null;
     }
 
+    /**
+     * Called for every decoded webcam frame, so this is a single hash lookup. The
+     * final check is constant-time, so response time does not reveal how much of a
+     * guessed code matched.
+     */
     public String authenticateQR(String qrCode) {
-        for (User user : users.values()) {
-            if (user.getQrCode().equals(qrCode)) {
-                return user.username;
-            }
+        if (qrCode == null) {
+            return null;
+        }
+        User user = usersByQrCode.get(qrKey(qrCode));
+        if (user != null && MessageDigest.isEqual(
+                user.getQrCode().getBytes(StandardCharsets.UTF_8), qrCode.getBytes(StandardCharsets.UTF_8))) {
+            return user.username;
         }
         return null;
     }
@@ -210,6 +231,10 @@ public class UserManager {
     public void updateBalance(String username, double balance) {
         UserAccount account = userAccounts.get(username);
         if (account != null) {
+            if (sameAmount(account.getBalance(), balance)) {
+                avoidedWrites++;
+                return;
+            }
             account.setBalance(balance);
             account.setLastUpdated(new Date().toString());
             saveUserAccounts(); // Add this
@@ -219,6 +244,10 @@ public class UserManager {
     public void updateIncome(String username, double income) {
         UserAccount account = userAccounts.get(username);
         if (account != null) {
+            if (sameAmount(account.getIncome(), income)) {
+                avoidedWrites++;
+                return;
+            }
             account.setIncome(income);
             account.setLastUpdated(new Date().toString());
             saveUserAccounts(); // Add this
@@ -228,6 +257,10 @@ public class UserManager {
     public void updateExpenses(String username, double expenses) {
         UserAccount account = userAccounts.get(username);
         if (account != null) {
+            if (sameAmount(account.getExpenses(), expenses)) {
+                avoidedWrites++;
+                return;
+            }
             account.setExpenses(expenses);
             account.setLastUpdated(new Date().toString());
             saveUserAccounts(); // Add this
@@ -237,6 +270,10 @@ public class UserManager {
     public void updateSavingsGoal(String username, double savingsGoal) {
         UserAccount account = userAccounts.get(username);
         if (account != null) {
+            if (sameAmount(account.getSavingsGoal(), savingsGoal)) {
+                avoidedWrites++;
+                return;
+            }
             account.setSavingsGoal(savingsGoal);
             account.setLastUpdated(new Date().toString());
             saveUserAccounts(); // Add this
@@ -246,6 +283,12 @@ public class UserManager {
     public void updateUserAccount(String username, double balance, double income, double expenses, double savingsGoal) {
         UserAccount account = userAccounts.get(username);
         if (account != null) {
+            // The dashboard calls this on every refresh, usually with the same numbers
+            if (sameAmount(account.getBalance(), balance) && sameAmount(account.getIncome(), income)
+                    && sameAmount(account.getExpenses(), expenses) && sameAmount(account.getSavingsGoal(), savingsGoal)) {
+                avoidedWrites++;
+                return;
+            }
             account.setBalance(balance);
             account.setIncome(income);
             account.setExpenses(expenses);
@@ -265,21 +308,21 @@ public class UserManager {
             return;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(USERS_CSV_FILE))) {
-            String line;
-            reader.readLine(); // Skip header line
-            while ((line = reader.readLine()) != null) {
-                String[] data = line.split(DELIMITER, -1);
-                if (data.length >= 5) {
-                    String username = data[0];
-                    String pinHash = data[1];
-                    String qrCode = data[2];
-                    String email = unescapeCSV(data[3]);
-                    String createdDate = unescapeCSV(data[4]);
-                    String profilePicture = data.length > 5 ? unescapeCSV(data[5]) : "";
+        try {
+            CsvCursor row = CsvCursor.open(Paths.get(USERS_CSV_FILE));
+            row.nextRow(); // Skip header line
+            while (row.nextRow()) {
+                if (row.fieldCount() >= 5) {
+                    String username = row.getString(0);
+                    String pinHash = row.getString(1);
+                    String qrCode = row.getString(2);
+                    String email = row.getString(3);
+                    String createdDate = row.getString(4);
+                    String profilePicture = row.fieldCount() > 5 ? row.getString(5) : "";
 
                     User user = new User(username, pinHash, qrCode, email, createdDate, profilePicture);
                     users.put(username, user);
+                    usersByQrCode.put(qrKey(qrCode), user);
 
                     if (email != null && !email.isEmpty()) {
                         usersByEmail.put(email.toLowerCase(), user);
@@ -300,6 +343,7 @@ public class UserManager {
         } catch (IOException e) {
             e.printStackTrace();
         }
+        snapshotStale = true;
     }
 
     private void loadUserAccounts() {
@@ -307,18 +351,17 @@ public class UserManager {
             return;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(ACCOUNTS_CSV_FILE))) {
-            String line;
-            reader.readLine(); // Skip header line
-            while ((line = reader.readLine()) != null) {
-                String[] data = line.split(DELIMITER, -1);
-                if (data.length >= 6) {
-                    String username = data[0];
-                    double balance = Double.parseDouble(data[1]);
-                    double income = Double.parseDouble(data[2]);
-                    double expenses = Double.parseDouble(data[3]);
-                    double savingsGoal = Double.parseDouble(data[4]);
-                    String lastUpdated = unescapeCSV(data[5]);
+        try {
+            CsvCursor row = CsvCursor.open(Paths.get(ACCOUNTS_CSV_FILE));
+            row.nextRow(); // Skip header line
+            while (row.nextRow()) {
+                if (row.fieldCount() >= 6) {
+                    String username = row.getString(0);
+                    double balance = row.getDouble(1);
+                    double income = row.getDouble(2);
+                    double expenses = row.getDouble(3);
+                    double savingsGoal = row.getDouble(4);
+                    String lastUpdated = row.getString(5);
 
                     UserAccount account = new UserAccount(username, balance, income, expenses, savingsGoal, lastUpdated);
                     userAccounts.put(username, account);
@@ -338,6 +381,7 @@ public class UserManager {
         } catch (IOException e) {
             e.printStackTrace();
         }
+        snapshotStale = true;
     }
 
     private void loadSavedCredentials() {
@@ -345,15 +389,14 @@ public class UserManager {
             return;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(SAVED_CREDENTIALS_FILE))) {
-            String line;
-            reader.readLine();
-            while ((line = reader.readLine()) != null) {
-                String[] data = line.split(DELIMITER, -1);
-                if (data.length >= 3) {
-                    String identifier = data[0];
-                    String pinHash = data[1];
-                    String lastLogin = unescapeCSV(data[2]);
+        try {
+            CsvCursor row = CsvCursor.open(Paths.get(SAVED_CREDENTIALS_FILE));
+            row.nextRow();
+            while (row.nextRow()) {
+                if (row.fieldCount() >= 3) {
+                    String identifier = row.getString(0);
+                    String pinHash = row.getString(1);
+                    String lastLogin = row.getString(2);
 
                     SavedCredential cred = new SavedCredential(identifier, pinHash, lastLogin);
                     savedCredentials.put(identifier.toLowerCase(), cred);
@@ -373,6 +416,7 @@ public class UserManager {
         } catch (IOException e) {
             e.printStackTrace();
         }
+        snapshotStale = true;
     }
 
     private void loadRewardPoints() {
@@ -380,15 +424,14 @@ public class UserManager {
             return;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(REWARD_POINTS_CSV))) {
-            String line;
-            reader.readLine(); // Skip header line
+        try {
+            CsvCursor row = CsvCursor.open(Paths.get(REWARD_POINTS_CSV));
+            row.nextRow(); // Skip header line
 
-            while ((line = reader.readLine()) != null) {
-                String[] data = line.split(DELIMITER, -1);
-                if (data.length >= 2) {
-                    String username = data[0];
-                    int points = Integer.parseInt(data[1]);
+            while (row.nextRow()) {
+                if (row.fieldCount() >= 2) {
+                    String username = row.getString(0);
+                    int points = row.getInt(1);
                     userRewardPoints.put(username, points);
                 }
             }
@@ -410,6 +453,122 @@ public class UserManager {
         } catch (IOException e) {
             e.printStackTrace();
         }
+        snapshotStale = true;
+    }
+
+    /**
+     * Write the binary snapshot if a CSV has changed since it was last written. Call
+     * once when the app closes; the CSVs are already up to date.
+     */
+    public void shutdown() {
+        if (snapshotStale && saveSnapshot()) {
+            snapshotStale = false;
+        }
+    }
+
+    private static Path[] snapshotSources() {
+        return new Path[]{Paths.get(USERS_CSV_FILE), Paths.get(ACCOUNTS_CSV_FILE),
+                Paths.get(SAVED_CREDENTIALS_FILE), Paths.get(REWARD_POINTS_CSV)};
+    }
+
+    /**
+     * Load all four user tables from the binary snapshot if it was written from the
+     * current CSVs. Returns false if the CSVs have to be parsed instead. Nothing is
+     * replaced unless the whole snapshot was read.
+     */
+    private boolean loadSnapshot() {
+        Path snapshot = Paths.get(USER_STATE_SNAPSHOT);
+        BinarySnapshot.Decoder in = BinarySnapshot.read(snapshot, USER_STATE_SNAPSHOT_KIND, snapshotSources());
+        if (in == null) {
+            return false;
+        }
+
+        try {
+            Map<String, User> loadedUsers = new HashMap<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                User user = new User(in.readString(), in.readString(), in.readString(),
+                        in.readString(), in.readString(), in.readString());
+                loadedUsers.put(user.username, user);
+            }
+            Map<String, UserAccount> loadedAccounts = new HashMap<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                UserAccount account = new UserAccount(in.readString(), in.readDouble(), in.readDouble(),
+                        in.readDouble(), in.readDouble(), in.readString());
+                loadedAccounts.put(account.getUsername(), account);
+            }
+            Map<String, SavedCredential> loadedCredentials = new HashMap<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                SavedCredential cred = new SavedCredential(in.readString(), in.readString(), in.readString());
+                loadedCredentials.put(cred.identifier.toLowerCase(), cred);
+            }
+            Map<String, Integer> loadedPoints = new HashMap<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                loadedPoints.put(in.readString(), in.readInt());
+            }
+
+            Map<String, User> loadedByQrCode = new HashMap<>();
+            Map<String, User> loadedByEmail = new HashMap<>();
+            for (User user : loadedUsers.values()) {
+                loadedByQrCode.put(qrKey(user.qrCode), user);
+                if (user.email != null && !user.email.isEmpty()) {
+                    loadedByEmail.put(user.email.toLowerCase(), user);
+                }
+            }
+
+            users = loadedUsers;
+            usersByQrCode = loadedByQrCode;
+            usersByEmail = loadedByEmail;
+            userAccounts = loadedAccounts;
+            savedCredentials = loadedCredentials;
+            userRewardPoints = loadedPoints;
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("Error loading snapshot " + snapshot + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Write users, accounts, saved credentials and reward points to the binary
+     * snapshot, recording the CSVs it mirrors.
+     */
+    private boolean saveSnapshot() {
+        BinarySnapshot.Encoder out = new BinarySnapshot.Encoder();
+        try {
+            out.writeInt(users.size());
+            for (User user : users.values()) {
+                out.writeString(user.username);
+                out.writeString(user.getPinHash());
+                out.writeString(user.qrCode);
+                out.writeString(user.email);
+                out.writeString(user.createdDate);
+                out.writeString(user.getProfilePicture());
+            }
+            out.writeInt(userAccounts.size());
+            for (UserAccount account : userAccounts.values()) {
+                out.writeString(account.getUsername());
+                out.writeDouble(account.getBalance());
+                out.writeDouble(account.getIncome());
+                out.writeDouble(account.getExpenses());
+                out.writeDouble(account.getSavingsGoal());
+                out.writeString(account.getLastUpdated());
+            }
+            out.writeInt(savedCredentials.size());
+            for (SavedCredential cred : savedCredentials.values()) {
+                out.writeString(cred.identifier);
+                out.writeString(cred.pinHash);
+                out.writeString(cred.lastLogin);
+            }
+            out.writeInt(userRewardPoints.size());
+            for (Map.Entry<String, Integer> entry : userRewardPoints.entrySet()) {
+                out.writeString(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        return BinarySnapshot.write(Paths.get(USER_STATE_SNAPSHOT), USER_STATE_SNAPSHOT_KIND, out, snapshotSources());
     }
 
     public int getRewardPoints(String username) {
@@ -417,10 +576,28 @@ public class UserManager {
     }
 
     public void setRewardPoints(String username, int points) {
-        userRewardPoints.put(username, Math.max(0, points));
+        Integer previous = userRewardPoints.put(username, Math.max(0, points));
+        if (previous != null && previous == Math.max(0, points)) {
+            avoidedWrites++;
+            return;
+        }
         saveRewardPoints();
     }
 
+    /**
+     * Number of updates that were skipped because nothing had changed.
+     */
+    public long getAvoidedWriteCount() {
+        return avoidedWrites;
+    }
+
+    /**
+     * Amounts are stored with two decimals, so compare them at that precision.
+     */
+    private static boolean sameAmount(double stored, double value) {
+        return Math.round(stored * 100) == Math.round(value * 100);
+    }
+
     public void addRewardPoints(String username, int points) {
         int current = getRewardPoints(username);
         int newPoints = Math.max(0, current + points);
@@ -457,6 +634,13 @@ public class UserManager {
         }
     }
 
+    /**
+     * Index key for a QR code: its SHA-256 digest, like hashPin.
+     */
+    private String qrKey(String qrCode) {
+        return hashPin(qrCode);
+    }
+
     private static String escapeCSV(String value) {
         if (value == null || value.isEmpty()) {
             return "";
@@ -469,13 +653,6 @@ public class UserManager {
         return value;
     }
 
-    private String unescapeCSV(String value) {
-        if (value.startsWith("\"") && value.endsWith("\"")) {
-            value = value.substring(1, value.length() - 1).replace("\"\"", "\"");
-        }
-        return value;
-    }
-
     public void setRewardPoints(String currentUser, double newPoints) {
     }
 
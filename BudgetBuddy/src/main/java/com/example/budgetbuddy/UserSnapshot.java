@@ -0,0 +1,151 @@
+package com.example.budgetbuddy;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable view of one user's data at a single point in time. BudgetManager
+ * publishes a new one after every committed change, and the UI renders a whole
+ * screen from one snapshot without taking locks, so it never sees half a change.
+ *
+ * A snapshot is made of independent parts: activity (totals and recent rows derived
+ * from the transactions), budgets and the savings target. A change rebuilds only
+ * the parts it touched; the new snapshot shares the others with the previous one.
+ */
+public final class UserSnapshot {
+
+    // Daily totals kept around the snapshot's day: four weeks back for the daily and
+    // weekly reports, and six days ahead because the current week runs past today
+    public static final int DAYS_BEFORE = 27;
+    public static final int DAYS_AFTER = 6;
+    public static final int RECENT_TRANSACTIONS = 10;
+
+    /**
+     * Everything derived from the transactions. Rebuilt when they change.
+     */
+    public static final class Activity {
+        private final double totalIncome;
+        private final double totalExpenses;
+        private final Map<String, Double> expensesByCategory;
+        private final Map<String, Double> monthlyIncome;
+        private final Map<String, Double> monthlyExpenses;
+        private final List<Transaction> recentTransactions;
+        private final int firstDay;
+        private final long[] dailyIncomeCents;
+        private final long[] dailyExpenseCents;
+
+        Activity(double totalIncome, double totalExpenses, Map<String, Double> expensesByCategory,
+                 Map<String, Double> monthlyIncome, Map<String, Double> monthlyExpenses,
+                 List<Transaction> recentTransactions, int firstDay,
+                 long[] dailyIncomeCents, long[] dailyExpenseCents) {
+            this.totalIncome = totalIncome;
+            this.totalExpenses = totalExpenses;
+            this.expensesByCategory = Collections.unmodifiableMap(expensesByCategory);
+            this.monthlyIncome = Collections.unmodifiableMap(monthlyIncome);
+            this.monthlyExpenses = Collections.unmodifiableMap(monthlyExpenses);
+            this.recentTransactions = Collections.unmodifiableList(recentTransactions);
+            this.firstDay = firstDay;
+            this.dailyIncomeCents = dailyIncomeCents;
+            this.dailyExpenseCents = dailyExpenseCents;
+        }
+    }
+
+    private final long version;
+    private final int day;
+    private final Activity activity;
+    private final Map<String, Budget> budgets;
+    private final double targetSavings;
+
+    /**
+     * @param day Epoch day the daily totals are centred on
+     * @param budgets Copies owned by this snapshot; never the manager's own Budget objects
+     */
+    UserSnapshot(long version, int day, Activity activity, Map<String, Budget> budgets, double targetSavings) {
+        this.version = version;
+        this.day = day;
+        this.activity = activity;
+        this.budgets = Collections.unmodifiableMap(budgets);
+        this.targetSavings = targetSavings;
+    }
+
+    /**
+     * The next version, replacing the parts that are not null and sharing the rest.
+     */
+    UserSnapshot next(Activity newActivity, Map<String, Budget> newBudgets, Double newTargetSavings) {
+        return new UserSnapshot(version + 1, day,
+                newActivity != null ? newActivity : activity,
+                newBudgets != null ? newBudgets : budgets,
+                newTargetSavings != null ? newTargetSavings : targetSavings);
+    }
+
+    /**
+     * Increases by one with every published change.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    int getDay() {
+        return day;
+    }
+
+    public double getTotalIncome() {
+        return activity.totalIncome;
+    }
+
+    public double getTotalExpenses() {
+        return activity.totalExpenses;
+    }
+
+    public Map<String, Double> getExpensesByCategory() {
+        return activity.expensesByCategory;
+    }
+
+    public Map<String, Double> getMonthlyIncome() {
+        return activity.monthlyIncome;
+    }
+
+    public Map<String, Double> getMonthlyExpenses() {
+        return activity.monthlyExpenses;
+    }
+
+    /**
+     * Newest first, at most RECENT_TRANSACTIONS rows.
+     */
+    public List<Transaction> getRecentTransactions() {
+        return activity.recentTransactions;
+    }
+
+    /**
+     * Budgets by category. The Budget objects belong to the snapshot, so changing
+     * them has no effect; use BudgetManager to change a budget.
+     */
+    public Map<String, Budget> getBudgets() {
+        return budgets;
+    }
+
+    public double getTargetSavings() {
+        return targetSavings;
+    }
+
+    /**
+     * Total of "Income" or "Expense" between two dates inclusive. Both dates must lie
+     * within DAYS_BEFORE days before and DAYS_AFTER days after the snapshot's day.
+     */
+    public double sumByDayRange(String type, LocalDate fromDay, LocalDate toDay) {
+        long[] daily = type.equals("Income") ? activity.dailyIncomeCents : activity.dailyExpenseCents;
+        int from = (int) fromDay.toEpochDay() - activity.firstDay;
+        int to = (int) toDay.toEpochDay() - activity.firstDay;
+        if (from < 0 || to >= daily.length) {
+            throw new IllegalArgumentException("Range " + fromDay + " to " + toDay + " is outside the snapshot");
+        }
+
+        long cents = 0;
+        for (int i = from; i <= to; i++) {
+            cents += daily[i];
+        }
+        return cents / 100.0;
+    }
+}
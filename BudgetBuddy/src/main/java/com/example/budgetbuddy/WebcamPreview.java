@@ -0,0 +1,147 @@
+package com.example.budgetbuddy;
+
+import javafx.application.Platform;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.nio.IntBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Shows webcam frames in an ImageView without allocating per frame. Frames are
+ * converted on the capture thread into one of three reused pixel buffers and written
+ * into a single WritableImage on the FX thread. At most one update is queued on the
+ * FX thread at a time; frames that arrive before it runs replace each other.
+ */
+public class WebcamPreview implements Consumer<BufferedImage> {
+
+    private static final class Frame {
+        final int width;
+        final int height;
+        final IntBuffer pixels;
+
+        Frame(int width, int height) {
+            this.width = width;
+            this.height = height;
+            this.pixels = IntBuffer.allocate(width * height);
+        }
+    }
+
+    private final ImageView view;
+
+    // back is filled by the capture thread, front is drawn by the FX thread and
+    // ready is handed between them under the lock
+    private Frame back;
+    private Frame ready;
+    private Frame front;
+    private boolean pending;
+    private long framesSkipped;
+
+    private WritableImage image;
+
+    public WebcamPreview(ImageView view) {
+        this.view = view;
+    }
+
+    /**
+     * Called on the capture thread with each new frame.
+     */
+    @Override
+    public void accept(BufferedImage frame) {
+        if (back == null || back.width != frame.getWidth() || back.height != frame.getHeight()) {
+            back = new Frame(frame.getWidth(), frame.getHeight());
+        }
+        toArgb(frame, back.pixels.array());
+
+        boolean schedule;
+        synchronized (this) {
+            Frame filled = back;
+            back = ready;
+            ready = filled;
+            schedule = !pending;
+            if (pending) {
+                framesSkipped++;
+            }
+            pending = true;
+        }
+        if (schedule) {
+            Platform.runLater(this::render);
+        }
+    }
+
+    /**
+     * Frames that were replaced by a newer one before the FX thread drew them.
+     */
+    public synchronized long getFramesSkipped() {
+        return framesSkipped;
+    }
+
+    private void render() {
+        synchronized (this) {
+            Frame shown = front;
+            front = ready;
+            ready = shown;
+            pending = false;
+        }
+
+        if (image == null || (int) image.getWidth() != front.width || (int) image.getHeight() != front.height) {
+            image = new WritableImage(front.width, front.height);
+            view.setImage(image);
+        }
+        // Every pixel is opaque, so premultiplied is the same data in the format JavaFX stores natively
+        image.getPixelWriter().setPixels(0, 0, front.width, front.height,
+                PixelFormat.getIntArgbPreInstance(), front.pixels, front.width);
+    }
+
+    /**
+     * Opaque ARGB pixels, read from the raster for the usual webcam layouts.
+     */
+    private static void toArgb(BufferedImage frame, int[] out) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        Raster raster = frame.getRaster();
+        boolean untranslated = raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                && raster.getDataBuffer().getOffset() == 0;
+
+        if (untranslated && raster.getDataBuffer() instanceof DataBufferByte
+                && raster.getSampleModel() instanceof ComponentSampleModel
+                && (frame.getType() == BufferedImage.TYPE_3BYTE_BGR || frame.getType() == BufferedImage.TYPE_4BYTE_ABGR)) {
+            ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+            byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+            int[] offsets = model.getBandOffsets();
+            int scanline = model.getScanlineStride();
+            int pixelStride = model.getPixelStride();
+            int i = 0;
+            for (int y = 0; y < height; y++) {
+                int in = y * scanline;
+                for (int x = 0; x < width; x++, in += pixelStride) {
+                    out[i++] = 0xFF000000
+                            | (data[in + offsets[0]] & 0xFF) << 16
+                            | (data[in + offsets[1]] & 0xFF) << 8
+                            | (data[in + offsets[2]] & 0xFF);
+                }
+            }
+            return;
+        }
+
+        if (untranslated && raster.getDataBuffer() instanceof DataBufferInt
+                && (frame.getType() == BufferedImage.TYPE_INT_RGB || frame.getType() == BufferedImage.TYPE_INT_ARGB)) {
+            int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+            for (int i = 0; i < width * height; i++) {
+                out[i] = 0xFF000000 | data[i];
+            }
+            return;
+        }
+
+        frame.getRGB(0, 0, width, height, out, 0, width);
+        for (int i = 0; i < width * height; i++) {
+            out[i] |= 0xFF000000;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.budgetbuddy;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamResolution;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One shared webcam for the whole app. The device is opened in the background the
+ * first time someone subscribes (or asks for it to be pre-warmed), and one capture
+ * thread hands every frame to all current subscribers. When the last subscriber
+ * leaves the camera stays open for a grace period, so a dialog that is reopened, or
+ * a second dialog that follows the first, shows video straight away.
+ *
+ * Opening and closing run on a single background thread and never block the caller.
+ */
+public class WebcamService {
+
+    public static final long DEFAULT_GRACE_MILLIS = 15_000;
+    private static final long DISCOVERY_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * Receives frames on the capture thread. Must return quickly; a slow listener
+     * delays the frame for every other subscriber.
+     */
+    public interface Listener {
+        void onFrame(BufferedImage frame);
+
+        /**
+         * The camera could not be opened. Called on the service thread.
+         */
+        void onUnavailable(String message);
+    }
+
+    private final long graceMillis;
+    private final ScheduledExecutorService scheduler;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private Webcam webcam;
+    private boolean opening;
+    private Thread captureThread;
+    private ScheduledFuture<?> pendingClose;
+    private boolean shutDown;
+
+    private long opens;
+    private long framesCaptured;
+
+    public WebcamService() {
+        this(DEFAULT_GRACE_MILLIS);
+    }
+
+    /**
+     * @param graceMillis How long to keep the camera open after the last subscriber leaves
+     */
+    public WebcamService(long graceMillis) {
+        this.graceMillis = Math.max(0, graceMillis);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "webcam-service");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start opening the camera without subscribing, e.g. when a screen that may need
+     * it is shown. Unless someone subscribes it is closed again after the grace period.
+     */
+    public synchronized void prewarm() {
+        if (shutDown) {
+            return;
+        }
+        if (webcam == null) {
+            openAsync();
+        } else if (listeners.isEmpty()) {
+            scheduleClose();
+        }
+    }
+
+    /**
+     * Start receiving frames. Returns immediately; frames follow once the camera is open.
+     */
+    public synchronized void subscribe(Listener listener) {
+        if (shutDown) {
+            listener.onUnavailable("Camera service has been shut down");
+            return;
+        }
+        listeners.add(listener);
+        cancelClose();
+        if (webcam == null) {
+            openAsync();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Stop receiving frames. A frame already being delivered may still arrive.
+     */
+    public synchronized void unsubscribe(Listener listener) {
+        if (listeners.remove(listener) && listeners.isEmpty() && webcam != null) {
+            scheduleClose();
+        }
+    }
+
+    public synchronized boolean isOpen() {
+        return webcam != null;
+    }
+
+    /**
+     * How many times the device has actually been opened.
+     */
+    public synchronized long getOpenCount() {
+        return opens;
+    }
+
+    public synchronized long getFramesCaptured() {
+        return framesCaptured;
+    }
+
+    /**
+     * Close the camera now and stop the service thread.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            shutDown = true;
+            listeners.clear();
+            cancelClose();
+        }
+        close(false);
+        scheduler.shutdownNow();
+    }
+
+    private void openAsync() {
+        if (opening) {
+            return;
+        }
+        opening = true;
+        scheduler.execute(this::open);
+    }
+
+    private void open() {
+        Webcam camera = null;
+        String error = null;
+        try {
+            camera = Webcam.getDefault(DISCOVERY_TIMEOUT_MILLIS);
+            if (camera == null) {
+                error = "No webcam detected!";
+            } else if (!camera.isOpen()) {
+                camera.setViewSize(WebcamResolution.VGA.getSize());
+                camera.open();
+            }
+        } catch (TimeoutException e) {
+            error = "No webcam detected!";
+        } catch (Exception e) {
+            System.err.println("Error opening webcam: " + e.getMessage());
+            e.printStackTrace();
+            error = "Failed to start camera: " + e.getMessage();
+            camera = null;
+        }
+
+        List<Listener> waiting;
+        synchronized (this) {
+            opening = false;
+            if (camera != null && !shutDown) {
+                webcam = camera;
+                opens++;
+                captureThread = new Thread(this::captureLoop, "webcam-capture");
+                captureThread.setDaemon(true);
+                captureThread.start();
+                if (listeners.isEmpty()) {
+                    scheduleClose();
+                }
+                return;
+            }
+            waiting = List.copyOf(listeners);
+        }
+
+        if (camera != null) {
+            // Shut down while the device was opening
+            camera.close();
+            return;
+        }
+        for (Listener listener : waiting) {
+            listener.onUnavailable(error);
+        }
+    }
+
+    private void captureLoop() {
+        while (true) {
+            Webcam camera;
+            synchronized (this) {
+                try {
+                    while (webcam != null && listeners.isEmpty()) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (webcam == null) {
+                    return;
+                }
+                camera = webcam;
+            }
+
+            try {
+                BufferedImage image = camera.getImage();
+                if (image == null) {
+                    Thread.sleep(10);
+                    continue;
+                }
+                synchronized (this) {
+                    framesCaptured++;
+                }
+                for (Listener listener : listeners) {
+                    listener.onFrame(image);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void scheduleClose() {
+        cancelClose();
+        pendingClose = scheduler.schedule(this::closeIfUnused, graceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelClose() {
+        if (pendingClose != null) {
+            pendingClose.cancel(false);
+            pendingClose = null;
+        }
+    }
+
+    private void closeIfUnused() {
+        close(true);
+    }
+
+    private void close(boolean onlyIfUnused) {
+        Webcam camera;
+        Thread capture;
+        synchronized (this) {
+            if (onlyIfUnused && !listeners.isEmpty()) {
+                return;
+            }
+            camera = webcam;
+            capture = captureThread;
+            webcam = null;
+            captureThread = null;
+            notifyAll();
+        }
+        if (camera == null) {
+            return;
+        }
+
+        // Let a getImage() in progress finish before the device goes away
+        if (capture != null && capture != Thread.currentThread()) {
+            try {
+                capture.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        camera.close();
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.budgetbuddy;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Write-behind persistence helper. Callers mark keys (files, stores) dirty and a single
+ * background thread writes each dirty key once per window, so a burst of changes
+ * becomes one disk write per key instead of one per change.
+ */
+public class WriteBehindFlusher<K> {
+
+    private final Consumer<K> writer;
+    private final long windowMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Object writeLock = new Object();
+    private final Thread shutdownHook;
+    private final Set<K> dirty = new LinkedHashSet<>();
+    private ScheduledFuture<?> pendingFlush;
+    private volatile boolean closed;
+
+    private long markCount;
+    private long writeCount;
+
+    /**
+     * @param name Name used for the background thread
+     * @param windowMillis How long to wait after the first change before writing
+     * @param writer Writes the current state for one key; called on the flusher thread
+     */
+    public WriteBehindFlusher(String name, long windowMillis, Consumer<K> writer) {
+        this.writer = writer;
+        this.windowMillis = Math.max(0, windowMillis);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        shutdownHook = new Thread(this::flush, name + "-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Schedule a write for this key. Returns immediately; never touches the disk.
+     * Keys are written in the order they were last marked.
+     */
+    public synchronized void markDirty(K key) {
+        dirty.remove(key);
+        dirty.add(key);
+        markCount++;
+
+        if (closed) {
+            return;
+        }
+        if (pendingFlush == null || pendingFlush.isDone()) {
+            pendingFlush = scheduler.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write every dirty key now, on the calling thread.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            Set<K> batch;
+            synchronized (this) {
+                if (dirty.isEmpty()) {
+                    return;
+                }
+                batch = new LinkedHashSet<>(dirty);
+                dirty.clear();
+            }
+
+            for (K key : batch) {
+                try {
+                    writer.accept(key);
+                    synchronized (this) {
+                        writeCount++;
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("Error flushing " + key + ": " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Flush outstanding writes, stop the background thread and unregister the
+     * shutdown hook, so a discarded flusher is not kept alive until exit.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            closed = true;
+            if (pendingFlush != null) {
+                pendingFlush.cancel(false);
+            }
+        }
+        flush();
+        scheduler.shutdown();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // The JVM is already shutting down; the hook runs or has run anyway
+        }
+    }
+
+    public synchronized boolean hasPendingWrites() {
+        return !dirty.isEmpty();
+    }
+
+    public synchronized boolean hasPendingWrites(Predicate<? super K> filter) {
+        for (K key : dirty) {
+            if (filter.test(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized long getMarkCount() {
+        return markCount;
+    }
+
+    public synchronized long getWriteCount() {
+        return writeCount;
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.budgetbuddy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers one user with concurrent adds, removes and budget updates while other
+ * threads read, and checks that every Budget.spent still matches the expenses
+ * actually stored in its category.
+ */
+class BudgetManagerConcurrencyTest {
+
+    private static final String[] BUDGETED = {"Food", "Transportation", "Entertainment"};
+    private static final String UNBUDGETED = "Gifts";
+    private static final int WRITERS = 6;
+    private static final int READERS = 3;
+    private static final int OPERATIONS_PER_WRITER = 400;
+    private static final double CENT = 0.005;
+    private static final LocalDate ALL_TIME_FROM = LocalDate.of(2000, 1, 1);
+    private static final LocalDate ALL_TIME_TO = LocalDate.now().plusYears(1);
+
+    private BudgetManager manager;
+    private String username;
+
+    @BeforeEach
+    void setUp() {
+        // Long flush window and no eviction, so the test exercises the in-memory state
+        manager = new BudgetManager(60_000, 0);
+        username = "concurrency-" + System.nanoTime();
+        for (String category : BUDGETED) {
+            manager.addBudget(username, category, 1000.00);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.clearUserData(username);
+        manager.shutdown();
+    }
+
+    @Test
+    void budgetSpentMatchesStoredExpensesAfterConcurrentChanges() throws Exception {
+        Queue<Transaction> added = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            long seed = w;
+            writers.add(pool.submit(() -> {
+                start.await();
+                write(new Random(seed), added);
+                return null;
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            readers.add(pool.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    assertSnapshotConsistent(manager.getSnapshot(username));
+                    for (String category : BUDGETED) {
+                        manager.sumByDayRange(username, "Expense", category,
+                                LocalDate.now().minusDays(30), LocalDate.now());
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        try {
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            writing.set(false);
+        }
+        for (Future<?> reader : readers) {
+            reader.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertSpentMatchesExpenses();
+        assertSnapshotConsistent(manager.getSnapshot(username));
+    }
+
+    @Test
+    void removingTheSameTransactionTwiceConcurrentlyOnlyCountsOnce() throws Exception {
+        List<Transaction> expenses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Transaction expense = new Transaction(LocalDate.now().toString(), "Food", "Lunch " + i, 12.34, "Expense");
+            expenses.add(expense);
+        }
+        manager.addTransactions(username, expenses);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> removers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            removers.add(pool.submit(() -> {
+                for (Transaction expense : expenses) {
+                    manager.removeExpense(username, expense);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> remover : removers) {
+            remover.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(0.0, manager.getUserBudgets(username).get("Food").getSpent(), CENT);
+        assertSpentMatchesExpenses();
+    }
+
+    @Test
+    void categoryRangeSumsStayExactWhenFirstQueriedDuringWrites() throws Exception {
+        int categories = 300;
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        Future<?> writer = pool.submit(() -> {
+            try {
+                for (int i = 0; i < categories * 10; i++) {
+                    manager.addExpense(username, LocalDate.now().minusDays(i % 40).toString(),
+                            "Category " + (i / 10), "Expense " + i, 1.25);
+                }
+            } finally {
+                writing.set(false);
+            }
+            return null;
+        });
+        List<Future<?>> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(pool.submit(() -> {
+                while (writing.get()) {
+                    for (int c = 0; c < categories; c++) {
+                        manager.sumByDayRange(username, "Expense", "Category " + c, ALL_TIME_FROM, ALL_TIME_TO);
+                    }
+                }
+                return null;
+            }));
+        }
+        writer.get(60, TimeUnit.SECONDS);
+        for (Future<?> reader : readers) {
+            reader.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        Map<String, Double> byCategory = manager.getExpensesByCategory(username);
+        for (int c = 0; c < categories; c++) {
+            String category = "Category " + c;
+            assertEquals(byCategory.get(category),
+                    manager.sumByDayRange(username, "Expense", category, ALL_TIME_FROM, ALL_TIME_TO), CENT, category);
+        }
+    }
+
+    @Test
+    void userBudgetsAreCopiesThatDoNotChangeStoredState() {
+        manager.addExpense(username, LocalDate.now().toString(), "Food", "Lunch", 25.00);
+        Budget copy = manager.getUserBudgets(username).get("Food");
+        copy.setSpent(0);
+        copy.setLimit(1);
+
+        manager.addExpense(username, LocalDate.now().toString(), "Food", "Dinner", 10.00);
+        assertEquals(0.0, copy.getSpent(), CENT);
+        Budget stored = manager.getUserBudgets(username).get("Food");
+        assertEquals(35.00, stored.getSpent(), CENT);
+        assertEquals(1000.00, stored.getLimit(), CENT);
+    }
+
+    @Test
+    void distantDatesSumExactlyAndOutOfRangeYearsAreRejected() {
+        LocalDate today = LocalDate.now();
+        manager.addExpense(username, today.toString(), "Food", "Lunch", 10.00);
+        manager.addExpense(username, "1950-06-01", "Food", "Old receipt", 20.00);
+        manager.addExpense(username, today.plusYears(30).toString(), "Food", "Future receipt", 40.00);
+
+        assertEquals(70.00, manager.sumByDayRange(username, "Expense", "Food",
+                LocalDate.of(1900, 1, 1), LocalDate.of(2199, 12, 31)), CENT);
+        assertEquals(10.00, manager.sumByDayRange(username, "Expense", "Food", today, today), CENT);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.addExpense(username, "9999-01-01", "Food", "Typo", 5.00));
+        assertThrows(IllegalArgumentException.class, () -> manager.addTransactions(username,
+                List.of(new Transaction("1066-10-14", "Food", "Typo", 5.00, "Expense"))));
+        assertEquals(70.00, manager.getUserBudgets(username).get("Food").getSpent(), CENT);
+    }
+
+    private void write(Random random, Queue<Transaction> added) {
+        for (int i = 0; i < OPERATIONS_PER_WRITER; i++) {
+            int operation = random.nextInt(10);
+            if (operation < 5 || added.isEmpty()) {
+                String category = random.nextInt(5) == 0 ? UNBUDGETED : BUDGETED[random.nextInt(BUDGETED.length)];
+                String date = LocalDate.now().minusDays(random.nextInt(60)).toString();
+                double amount = (1 + random.nextInt(50_000)) / 100.0;
+                Transaction expense = new Transaction(date, category, "Expense " + i, amount, "Expense");
+                manager.addTransactions(username, List.of(expense));
+                added.add(expense);
+            } else if (operation < 7) {
+                Transaction expense = added.poll();
+                if (expense != null) {
+                    manager.removeExpense(username, expense);
+                }
+            } else if (operation < 8) {
+                Transaction expense = added.poll();
+                if (expense != null) {
+                    manager.deleteTransaction(username, expense.getId());
+                }
+            } else if (operation < 9) {
+                manager.updateBudgetLimit(username, BUDGETED[random.nextInt(BUDGETED.length)],
+                        500 + random.nextInt(1000));
+            } else {
+                manager.addIncome(username, LocalDate.now().toString(), "Pay", 100.00);
+            }
+        }
+    }
+
+    private void assertSpentMatchesExpenses() {
+        Map<String, Budget> budgets = manager.getUserBudgets(username);
+        Map<String, Double> byCategory = manager.getExpensesByCategory(username);
+
+        Map<String, Double> listed = new HashMap<>();
+        for (Transaction expense : manager.getExpenses(username)) {
+            listed.merge(expense.getCategory(), expense.getAmount(), Double::sum);
+        }
+
+        for (String category : BUDGETED) {
+            double spent = budgets.get(category).getSpent();
+            assertEquals(listed.getOrDefault(category, 0.0), spent, CENT, category);
+            assertEquals(byCategory.getOrDefault(category, 0.0), spent, CENT, category);
+            assertEquals(spent, manager.sumByDayRange(username, "Expense", category,
+                    ALL_TIME_FROM, ALL_TIME_TO), CENT, category);
+        }
+    }
+
+    private static void assertSnapshotConsistent(UserSnapshot snapshot) {
+        Map<String, Double> byCategory = snapshot.getExpensesByCategory();
+        double total = 0;
+        for (double categoryTotal : byCategory.values()) {
+            total += categoryTotal;
+        }
+        assertEquals(snapshot.getTotalExpenses(), total, CENT);
+        for (String category : BUDGETED) {
+            Budget budget = snapshot.getBudgets().get(category);
+            assertTrue(budget != null, category);
+            assertEquals(byCategory.getOrDefault(category, 0.0), budget.getSpent(), CENT, category);
+        }
+    }
+}